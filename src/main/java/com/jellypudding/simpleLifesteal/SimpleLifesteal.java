@@ -7,12 +7,18 @@ import com.jellypudding.simpleLifesteal.commands.CheckBanResultCommand;
 import com.jellypudding.simpleLifesteal.commands.HeartWithdrawCommand;
 import com.jellypudding.simpleLifesteal.commands.HeartRecipeCommand;
 import com.jellypudding.simpleLifesteal.commands.ShrineCommand;
+import com.jellypudding.simpleLifesteal.commands.StatsCommand;
 import com.jellypudding.simpleLifesteal.database.DatabaseManager;
+import com.jellypudding.simpleLifesteal.listeners.CombatLogNpcListener;
 import com.jellypudding.simpleLifesteal.listeners.PlayerListener;
 import com.jellypudding.simpleLifesteal.listeners.ShrineListener;
 import com.jellypudding.simpleLifesteal.managers.PlayerDataManager;
+import com.jellypudding.simpleLifesteal.managers.BroadcastAggregator;
 import com.jellypudding.simpleLifesteal.managers.CraftingManager;
+import com.jellypudding.simpleLifesteal.managers.DiscordNotifier;
 import com.jellypudding.simpleLifesteal.managers.GracePeriodManager;
+import com.jellypudding.simpleLifesteal.managers.LoadGovernor;
+import com.jellypudding.simpleLifesteal.managers.StatsManager;
 import com.jellypudding.simpleLifesteal.shrine.ShrineManager;
 import com.jellypudding.simpleLifesteal.utils.HeartItemUtil;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -34,8 +40,14 @@ public final class SimpleLifesteal extends JavaPlugin {
     private HeartItemUtil heartItemUtil;
     private CraftingManager craftingManager;
     private GracePeriodManager gracePeriodManager;
+    private StatsManager statsManager;
+    private DiscordNotifier discordNotifier;
+    private BroadcastAggregator broadcastAggregator;
+    private Metrics metrics;
     private ShrineManager shrineManager;
+    private LoadGovernor loadGovernor;
     private ShrineListener shrineListener;
+    private CombatLogNpcListener combatLogNpcListener;
     // Map to store results of async ban checks (PlayerName -> BanCheckResult).
     private final Map<String, BanCheckResult> pendingBanResults = new ConcurrentHashMap<>();
     private boolean discordRelayAPIReady = false;
@@ -54,16 +66,22 @@ public final class SimpleLifesteal extends JavaPlugin {
         // Initialise database.
         databaseManager = new DatabaseManager(this);
         try {
-            databaseManager.getConnection();
+            databaseManager.open();
         } catch (SQLException e) {
             getLogger().severe("Failed to initialise database! Disabling plugin.");
             getServer().getPluginManager().disablePlugin(this);
             return;
         }
 
+        // Initialise statistics. Before the player data manager, which reports heart changes to it.
+        statsManager = new StatsManager(this);
+
         // Initialise player data manager.
         playerDataManager = new PlayerDataManager(this);
 
+        // Initialise chat message merging.
+        broadcastAggregator = new BroadcastAggregator(this);
+
         // Initialise heart item utility.
         heartItemUtil = new HeartItemUtil(this);
 
@@ -78,8 +96,10 @@ public final class SimpleLifesteal extends JavaPlugin {
         getCommand("isbanned").setExecutor(new IsBannedCommand(this));
         getCommand("slunban").setExecutor(new SlUnbanCommand(this));
         getCommand("checkbanresult").setExecutor(new CheckBanResultCommand(this));
+        getCommand("slstats").setExecutor(new StatsCommand(this));
 
         if (getConfig().getBoolean("shrine.enabled", true)) {
+            loadGovernor = new LoadGovernor(this);
             shrineManager = new ShrineManager(this);
             shrineListener = new ShrineListener(this, shrineManager);
             ShrineCommand shrineCmd = new ShrineCommand(this, shrineManager);
@@ -89,6 +109,8 @@ public final class SimpleLifesteal extends JavaPlugin {
         }
 
         // Register Event Listeners.
+        combatLogNpcListener = new CombatLogNpcListener(this);
+        getServer().getPluginManager().registerEvents(combatLogNpcListener, this);
         getServer().getPluginManager().registerEvents(new PlayerListener(this), this);
         if (shrineListener != null) {
             getServer().getPluginManager().registerEvents(shrineListener, this);
@@ -114,6 +136,12 @@ public final class SimpleLifesteal extends JavaPlugin {
             getLogger().info("DiscordRelay plugin not found. Discord integration disabled.");
         }
 
+        if (this.discordRelayAPIReady) {
+            discordNotifier = new DiscordNotifier(this, DiscordNotifier.Sink.discordRelay());
+        } else {
+            discordNotifier = new DiscordNotifier(this, null);
+        }
+
         // Initialise grace period manager.
         boolean gracePeriodEnabled = getConfig().getBoolean("grace-period.enabled", false);
         int gracePeriodHours = getConfig().getInt("grace-period.duration-hours", 1);
@@ -148,7 +176,8 @@ public final class SimpleLifesteal extends JavaPlugin {
 
         // Initialise bStats
         int pluginId = 27543;
-        new Metrics(this, pluginId);
+        metrics = new Metrics(this, pluginId);
+        statsManager.registerCharts(metrics);
 
         getLogger().info("SimpleLifesteal fully enabled.");
     }
@@ -163,10 +192,18 @@ public final class SimpleLifesteal extends JavaPlugin {
             shrineManager.shutdown();
         }
 
+        if (loadGovernor != null) {
+            loadGovernor.shutdown();
+        }
+
         if (playerDataManager != null) {
             playerDataManager.saveAllPlayerData();
         }
 
+        if (broadcastAggregator != null) {
+            broadcastAggregator.flush();
+        }
+
         if (craftingManager != null) {
             craftingManager.unregisterHeartRecipe();
         }
@@ -175,6 +212,11 @@ public final class SimpleLifesteal extends JavaPlugin {
         if (databaseManager != null) {
             databaseManager.closeConnection();
         }
+
+        // After the database, as draining the write queue can still post ban notifications.
+        if (discordNotifier != null) {
+            discordNotifier.shutdown();
+        }
     }
 
     public int getStartingHearts() {
@@ -210,6 +252,22 @@ public final class SimpleLifesteal extends JavaPlugin {
         return discordRelayAPIReady;
     }
 
+    public LoadGovernor getLoadGovernor() {
+        return loadGovernor;
+    }
+
+    public CombatLogNpcListener getCombatLogNpcListener() {
+        return combatLogNpcListener;
+    }
+
+    public BroadcastAggregator getBroadcastAggregator() {
+        return broadcastAggregator;
+    }
+
+    public DiscordNotifier getDiscordNotifier() {
+        return discordNotifier;
+    }
+
     public GracePeriodManager getGracePeriodManager() {
         return gracePeriodManager;
     }
@@ -226,12 +284,16 @@ public final class SimpleLifesteal extends JavaPlugin {
         return shrineManager;
     }
 
+    public StatsManager getStatsManager() {
+        return statsManager;
+    }
+
     // API Methods are below
 
     /**
      * API method to give a player hearts.
      * Handles clamping hearts between min (0) and max configured hearts.
-     * Saves the data to the database.
+     * Saves the data to the database. Safe to call from async threads.
      *
      * @param playerUuid The UUID of the player.
      * @param amount The number of hearts to add (must be positive).
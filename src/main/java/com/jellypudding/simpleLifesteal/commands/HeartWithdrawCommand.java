@@ -73,6 +73,7 @@ public class HeartWithdrawCommand implements CommandExecutor {
         // Create heart item using the utility
         ItemStack heartItem = heartItemUtil.createHeartItem(heartsToWithdraw);
         player.getInventory().addItem(heartItem);
+        plugin.getStatsManager().recordItemsMinted(heartsToWithdraw);
 
         // Send success message
         int newHeartCount = currentHearts - heartsToWithdraw;
@@ -1,10 +1,12 @@
 package com.jellypudding.simpleLifesteal.commands;
 
 import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+import com.jellypudding.simpleLifesteal.managers.LoadGovernor;
 import com.jellypudding.simpleLifesteal.shrine.ShrineData;
 import com.jellypudding.simpleLifesteal.shrine.ShrineManager;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -111,6 +113,7 @@ public class ShrineCommand implements CommandExecutor, TabCompleter {
         ShrineData shrine = shrineManager.getActiveShrine();
         if (shrine == null) {
             sender.sendMessage(Component.text("No Blood Shrine is currently active.", NamedTextColor.GRAY));
+            sendCosmeticsLevel(sender);
             return;
         }
 
@@ -127,6 +130,17 @@ public class ShrineCommand implements CommandExecutor, TabCompleter {
                 .append(Component.text(shrine.getRemainingUnbans(), NamedTextColor.GREEN)));
         sender.sendMessage(Component.text("  Expires in: ", NamedTextColor.GRAY)
                 .append(Component.text(mins + "m " + String.format("%02d", rSec) + "s", NamedTextColor.YELLOW)));
+        sendCosmeticsLevel(sender);
+    }
+
+    private void sendCosmeticsLevel(CommandSender sender) {
+        LoadGovernor governor = plugin.getLoadGovernor();
+        LoadGovernor.Level level = governor.getLevel();
+        // Read live rather than from the governor, which does not sample when adaptive cosmetics are off.
+        double mspt = Bukkit.getServer().getAverageTickTime();
+        sender.sendMessage(Component.text("  Cosmetics: ", NamedTextColor.GRAY)
+                .append(Component.text(level.name(), level == LoadGovernor.Level.FULL ? NamedTextColor.GREEN : NamedTextColor.YELLOW))
+                .append(Component.text(String.format(" (%.1f mspt)", mspt), NamedTextColor.DARK_GRAY)));
     }
 
     @Override
@@ -31,7 +31,7 @@ public class SlUnbanCommand implements CommandExecutor {
             sender.sendMessage(Component.text("Attempting to unban Bedrock player via API lookup...", NamedTextColor.GRAY));
         }
 
-        UnbanService.unban(plugin, playerName, (uuid, unbanned) -> {
+        UnbanService.unban(plugin, playerName, (uuid, unbanned, error) -> {
             if (uuid == null) {
                 if (playerName.startsWith(bedrockPrefix)) {
                     sender.sendMessage(Component.text("Player '" + playerName + "' not found via Geyser API lookup. Cannot unban.", NamedTextColor.RED));
@@ -41,7 +41,11 @@ public class SlUnbanCommand implements CommandExecutor {
                 return;
             }
 
-            if (unbanned) {
+            if (error != null) {
+                sender.sendMessage(Component.text("Could not unban ", NamedTextColor.RED)
+                    .append(Component.text(playerName, NamedTextColor.YELLOW))
+                    .append(Component.text(" due to a database error. Check the console for details.", NamedTextColor.RED)));
+            } else if (unbanned) {
                 sender.sendMessage(Component.text(playerName, NamedTextColor.YELLOW)
                     .append(Component.text(" has been unbanned from the SimpleLifesteal database.", NamedTextColor.GREEN)));
                 plugin.getLogger().info("Admin " + sender.getName() + " unbanned " + playerName + " from the SimpleLifesteal database.");
@@ -0,0 +1,75 @@
+package com.jellypudding.simpleLifesteal.commands;
+
+import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+import com.jellypudding.simpleLifesteal.database.WriteExecutor;
+import com.jellypudding.simpleLifesteal.managers.DiscordNotifier;
+import com.jellypudding.simpleLifesteal.managers.PlayerDataManager;
+import com.jellypudding.simpleLifesteal.managers.StatsManager;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+public class StatsCommand implements CommandExecutor {
+
+    private final SimpleLifesteal plugin;
+
+    public StatsCommand(SimpleLifesteal plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        StatsManager stats = plugin.getStatsManager();
+        PlayerDataManager playerDataManager = plugin.getPlayerDataManager();
+        WriteExecutor writer = plugin.getDatabaseManager().getWriteExecutor();
+
+        sender.sendMessage(Component.text("SimpleLifesteal Statistics", NamedTextColor.DARK_RED, TextDecoration.BOLD));
+        sender.sendMessage(line("Players banned", stats.getCurrentBans() + " now, " + stats.getTotalBans() + " in total"));
+        sender.sendMessage(line("Heart items minted", String.valueOf(stats.getItemsMinted())));
+
+        StringBuilder bansPerDay = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : stats.getRecentBansPerDay().entrySet()) {
+            if (!bansPerDay.isEmpty()) bansPerDay.append("  ");
+            bansPerDay.append(entry.getKey().substring(5)).append(": ").append(entry.getValue());
+        }
+        sender.sendMessage(line("Bans (last 7 days, UTC)", bansPerDay.toString()));
+
+        StringBuilder histogram = new StringBuilder();
+        for (Map.Entry<Integer, Integer> entry : stats.getHeartHistogram().entrySet()) {
+            if (!histogram.isEmpty()) histogram.append("  ");
+            histogram.append(entry.getKey()).append("❤ ").append(entry.getValue());
+        }
+        sender.sendMessage(line("Heart distribution", histogram.isEmpty() ? "no data yet" : histogram.toString()));
+
+        sender.sendMessage(Component.text("Performance", NamedTextColor.RED, TextDecoration.BOLD));
+        sender.sendMessage(line("Write queue", writer.getQueueDepth() + " pending, "
+                + writer.getCommittedWrites() + " writes in " + writer.getCommittedBatches() + " commits, "
+                + writer.getFailedWrites() + " failed"));
+        sender.sendMessage(line("Commit time", String.format("avg %.2f ms, last %.2f ms, max %.2f ms",
+                writer.getAverageCommitMillis(), writer.getLastCommitMillis(), writer.getMaxCommitMillis())));
+        sender.sendMessage(line("Player cache", playerDataManager.getCacheHits() + " hits, "
+                + playerDataManager.getCacheMisses() + " misses"));
+        sender.sendMessage(line("Join loads", playerDataManager.getJoinLoadRequests() + " in "
+                + playerDataManager.getJoinLoadBatches() + " batches, "
+                + String.format("%.2f", playerDataManager.getQueriesPerJoin()) + " queries per join"));
+
+        DiscordNotifier discord = plugin.getDiscordNotifier();
+        if (discord.isEnabled()) {
+            sender.sendMessage(line("Discord", discord.getQueuedMessages() + " queued, "
+                    + discord.getSentMessages() + " sent, " + discord.getDroppedMessages() + " dropped, "
+                    + discord.getFailedMessages() + " failed, " + discord.getPendingMessages() + " pending"));
+        }
+        return true;
+    }
+
+    private Component line(String label, String value) {
+        return Component.text(label + ": ", NamedTextColor.GRAY)
+                .append(Component.text(value, NamedTextColor.YELLOW));
+    }
+}
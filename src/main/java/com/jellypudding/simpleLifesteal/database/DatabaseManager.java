@@ -1,6 +1,7 @@
 package com.jellypudding.simpleLifesteal.database;
 
 import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+import com.jellypudding.simpleLifesteal.managers.PlayerState;
 
 import java.io.File;
 import java.io.IOException;
@@ -10,27 +11,77 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
 import java.util.logging.Level;
 
 public class DatabaseManager {
 
+    private static final long READER_WAIT_SECONDS = 5;
+    // Players looked up per IN query, well below SQLite's bound parameter limit.
+    public static final int MAX_IN_CLAUSE = 500;
+
     private final SimpleLifesteal plugin;
-    private volatile Connection connection;
+    private volatile PooledConnection writer;
     private final File dbFile;
     private final Object connectionLock = new Object();
 
+    // Pooled mode: one writer connection plus a few read-only connections in WAL mode,
+    // so reads from the main thread never queue behind a slow write.
+    private final boolean pooled;
+    private final int readerCount;
+    private final BlockingQueue<PooledConnection> readers = new LinkedBlockingQueue<>();
+    private volatile boolean closed = false;
+
+    private final WriteExecutor writeExecutor;
+
+    // Mirror of plugin_bans, loaded on connect and kept in sync by the methods that change it.
+    private final Set<UUID> bannedPlayers = ConcurrentHashMap.newKeySet();
+
+    @FunctionalInterface
+    interface SqlWork<T> {
+        T run(PooledConnection conn) throws SQLException;
+    }
+
     public DatabaseManager(SimpleLifesteal plugin) {
         this.plugin = plugin;
         this.dbFile = new File(plugin.getDataFolder(), "player_hearts.db");
+        this.pooled = plugin.getConfig().getBoolean("database.pool.enabled", true);
+        this.readerCount = Math.max(1, plugin.getConfig().getInt("database.pool.readers", 3));
+        this.writeExecutor = new WriteExecutor(plugin, this);
     }
 
-    public Connection getConnection() throws SQLException {
+    /**
+     * Opens the database if it is not open yet. Called once on enable, so a database that cannot
+     * be opened disables the plugin instead of failing on the first write.
+     *
+     * @throws SQLException If the database could not be opened.
+     */
+    public void open() throws SQLException {
         synchronized (connectionLock) {
-            if (connection == null || connection.isClosed()) {
-                connect();
-            }
-            return connection;
+            ensureConnected();
+        }
+    }
+
+    // Callers must hold connectionLock.
+    private void ensureConnected() throws SQLException {
+        if (writer == null || writer.isClosed()) {
+            connect();
         }
     }
 
@@ -49,9 +100,21 @@ public class DatabaseManager {
 
         try {
             Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+            writer = new PooledConnection(DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath()));
+            closed = false;
             plugin.getLogger().info("Successfully connected to SQLite database.");
+            if (pooled) {
+                enableWriteAheadLog(writer.getConnection());
+            }
             initialiseDatabase();
+            loadBanIndex();
+            if (pooled && readers.isEmpty()) {
+                for (int i = 0; i < readerCount; i++) {
+                    readers.add(openReader());
+                }
+                plugin.getLogger().info("Opened " + readerCount + " database reader connection" + (readerCount == 1 ? "" : "s") + " (WAL mode).");
+            }
+            writeExecutor.start();
         } catch (ClassNotFoundException e) {
             plugin.getLogger().log(Level.SEVERE, "SQLite JDBC driver not found!", e);
             closeConnectionInternal();
@@ -63,7 +126,25 @@ public class DatabaseManager {
         }
     }
 
+    private void enableWriteAheadLog(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode=WAL");
+            stmt.execute("PRAGMA synchronous=NORMAL");
+            stmt.execute("PRAGMA busy_timeout=5000");
+        }
+    }
+
+    private PooledConnection openReader() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout=5000");
+            stmt.execute("PRAGMA query_only=true");
+        }
+        return new PooledConnection(conn);
+    }
+
     private void initialiseDatabase() throws SQLException {
+        Connection connection = writer.getConnection();
         String sql = "CREATE TABLE IF NOT EXISTS player_hearts (" +
                    " uuid TEXT PRIMARY KEY NOT NULL," +
                    " current_hearts INTEGER NOT NULL," +
@@ -102,207 +183,528 @@ public class DatabaseManager {
             plugin.getLogger().log(Level.SEVERE, "Could not initialise shrine_unbans table!", e);
             throw e;
         }
+
+        try {
+            initialiseAggregates(connection);
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not initialise statistics tables!", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the statistics tables and the triggers that keep them up to date, so that
+     * counts never need a full table scan. Existing data is counted once, the first time.
+     */
+    private void initialiseAggregates(Connection connection) throws SQLException {
+        String[] schema = {
+            "CREATE TABLE IF NOT EXISTS lifesteal_stats (stat TEXT PRIMARY KEY NOT NULL, value INTEGER NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS heart_histogram (hearts INTEGER PRIMARY KEY NOT NULL, players INTEGER NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS ban_days (day TEXT PRIMARY KEY NOT NULL, bans INTEGER NOT NULL)",
+
+            "CREATE TRIGGER IF NOT EXISTS heart_histogram_insert AFTER INSERT ON player_hearts BEGIN" +
+            " INSERT OR IGNORE INTO heart_histogram (hearts, players) VALUES (NEW.current_hearts, 0);" +
+            " UPDATE heart_histogram SET players = players + 1 WHERE hearts = NEW.current_hearts;" +
+            " END",
+            "CREATE TRIGGER IF NOT EXISTS heart_histogram_update AFTER UPDATE OF current_hearts ON player_hearts" +
+            " WHEN OLD.current_hearts <> NEW.current_hearts BEGIN" +
+            " UPDATE heart_histogram SET players = players - 1 WHERE hearts = OLD.current_hearts;" +
+            " INSERT OR IGNORE INTO heart_histogram (hearts, players) VALUES (NEW.current_hearts, 0);" +
+            " UPDATE heart_histogram SET players = players + 1 WHERE hearts = NEW.current_hearts;" +
+            " END",
+            "CREATE TRIGGER IF NOT EXISTS heart_histogram_delete AFTER DELETE ON player_hearts BEGIN" +
+            " UPDATE heart_histogram SET players = players - 1 WHERE hearts = OLD.current_hearts;" +
+            " END",
+            "CREATE TRIGGER IF NOT EXISTS ban_days_insert AFTER INSERT ON plugin_bans BEGIN" +
+            " INSERT OR IGNORE INTO ban_days (day, bans) VALUES (date(NEW.ban_timestamp / 1000, 'unixepoch'), 0);" +
+            " UPDATE ban_days SET bans = bans + 1 WHERE day = date(NEW.ban_timestamp / 1000, 'unixepoch');" +
+            " END"
+        };
+
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement()) {
+            for (String sql : schema) {
+                stmt.execute(sql);
+            }
+
+            boolean initialised;
+            try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM lifesteal_stats WHERE stat = 'aggregates_initialised'")) {
+                initialised = rs.next();
+            }
+            if (!initialised) {
+                // Bans lifted before this point are already gone from plugin_bans, so only current bans are counted per day.
+                stmt.execute("DELETE FROM heart_histogram");
+                stmt.execute("INSERT INTO heart_histogram (hearts, players)" +
+                             " SELECT current_hearts, COUNT(*) FROM player_hearts GROUP BY current_hearts");
+                stmt.execute("DELETE FROM ban_days");
+                stmt.execute("INSERT INTO ban_days (day, bans)" +
+                             " SELECT date(ban_timestamp / 1000, 'unixepoch'), COUNT(*) FROM plugin_bans GROUP BY 1");
+                stmt.execute("INSERT INTO lifesteal_stats (stat, value) VALUES ('aggregates_initialised', 1)");
+                plugin.getLogger().info("Built statistics tables from existing player data.");
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private void loadBanIndex() throws SQLException {
+        Set<UUID> loaded = new HashSet<>();
+        try (Statement stmt = writer.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT uuid FROM plugin_bans")) {
+            while (rs.next()) {
+                try {
+                    loaded.add(UUID.fromString(rs.getString("uuid")));
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Ignoring plugin ban with invalid UUID: " + rs.getString("uuid"));
+                }
+            }
+        }
+        bannedPlayers.clear();
+        bannedPlayers.addAll(loaded);
+        plugin.getLogger().info("Loaded " + loaded.size() + " plugin ban" + (loaded.size() == 1 ? "" : "s") + " into memory.");
     }
 
     public void closeConnection() {
+        // Let the writer thread commit whatever is still queued before the connection goes away.
+        writeExecutor.shutdown();
         synchronized (connectionLock) {
             closeConnectionInternal();
         }
     }
 
     private void closeConnectionInternal() {
+        closed = true;
+        PooledConnection reader;
+        while ((reader = readers.poll()) != null) {
+            try {
+                reader.close();
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.WARNING, "Error closing database reader connection", e);
+            }
+        }
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+            if (writer != null && !writer.isClosed()) {
+                writer.close();
             }
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Error closing database connection", e);
         } finally {
-            connection = null;
+            writer = null;
         }
     }
 
-    public int getPlayerHearts(UUID uuid) {
-        String sql = "SELECT current_hearts FROM player_hearts WHERE uuid = ?";
+    private <T> T read(SqlWork<T> work) throws SQLException {
+        if (!pooled) {
+            return write(work);
+        }
+        PooledConnection reader = borrowReader();
+        try {
+            return work.run(reader);
+        } finally {
+            releaseReader(reader);
+        }
+    }
+
+    <T> T write(SqlWork<T> work) throws SQLException {
         synchronized (connectionLock) {
-            Connection conn = null;
-            try {
-                conn = getConnection();
-                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                    pstmt.setString(1, uuid.toString());
-                    try (ResultSet rs = pstmt.executeQuery()) {
-                        if (rs.next()) {
-                            return rs.getInt("current_hearts");
-                        }
-                    }
-                }
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not retrieve hearts for UUID: " + uuid, e);
+            ensureConnected();
+            return work.run(writer);
+        }
+    }
+
+    private PooledConnection borrowReader() throws SQLException {
+        if (closed) {
+            throw new SQLException("Database connection is closed");
+        }
+        try {
+            PooledConnection reader = readers.poll(READER_WAIT_SECONDS, TimeUnit.SECONDS);
+            if (reader == null) {
+                throw new SQLException("Timed out waiting for a database reader connection");
             }
+            if (reader.isClosed()) {
+                reader = openReader();
+            }
+            return reader;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database reader connection", e);
         }
-        return -1;
     }
 
-    public void setPlayerHearts(UUID uuid, int hearts) {
-        String sql = "INSERT OR REPLACE INTO player_hearts (uuid, current_hearts, max_hearts) VALUES (?, ?, COALESCE((SELECT max_hearts FROM player_hearts WHERE uuid = ?), NULL))";
-        synchronized (connectionLock) {
-            Connection conn = null;
+    private void releaseReader(PooledConnection reader) {
+        if (closed) {
             try {
-                conn = getConnection();
-                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                    pstmt.setString(1, uuid.toString());
-                    pstmt.setInt(2, hearts);
-                    pstmt.setString(3, uuid.toString());
-                    pstmt.executeUpdate();
-                }
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not set hearts for UUID: " + uuid, e);
+                reader.close();
+            } catch (SQLException ignored) {
+                // Shutting down.
             }
+            return;
         }
+        readers.offer(reader);
     }
 
-    public Integer getPlayerMaxHearts(UUID uuid) {
-        String sql = "SELECT max_hearts FROM player_hearts WHERE uuid = ?";
-        synchronized (connectionLock) {
-            Connection conn = null;
-            try {
-                conn = getConnection();
-                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                    pstmt.setString(1, uuid.toString());
+    /**
+     * Loads a player's hearts and individual heart limit in one query.
+     *
+     * @return The player's state, or null if the player has no row in player_hearts.
+     */
+    public PlayerState loadPlayerState(UUID uuid) {
+        String sql = "SELECT current_hearts, max_hearts FROM player_hearts WHERE uuid = ?";
+        try {
+            return read(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, uuid.toString());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        int hearts = rs.getInt("current_hearts");
+                        int maxHearts = rs.getInt("max_hearts");
+                        Integer individualMax = rs.wasNull() ? null : maxHearts;
+                        return new PlayerState(hearts, individualMax);
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not load player state for UUID: " + uuid, e);
+        }
+        return null;
+    }
+
+    /**
+     * Loads the state of several players with one {@code WHERE uuid IN (...)} query per
+     * {@link #MAX_IN_CLAUSE} players. Players without a row are absent from the result.
+     */
+    public Map<UUID, PlayerState> loadPlayerStates(List<UUID> uuids) {
+        Map<UUID, PlayerState> states = new HashMap<>();
+        try {
+            read(conn -> {
+                for (int from = 0; from < uuids.size(); from += MAX_IN_CLAUSE) {
+                    List<UUID> chunk = uuids.subList(from, Math.min(from + MAX_IN_CLAUSE, uuids.size()));
+                    // Pad to a power-of-two parameter count so only a handful of statements are cached.
+                    int params = Math.min(MAX_IN_CLAUSE, Integer.highestOneBit(chunk.size() * 2 - 1));
+                    PreparedStatement pstmt = conn.prepare(loadPlayerStatesSql(params));
+                    for (int i = 0; i < params; i++) {
+                        pstmt.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)).toString());
+                    }
                     try (ResultSet rs = pstmt.executeQuery()) {
-                        if (rs.next()) {
+                        while (rs.next()) {
+                            int hearts = rs.getInt("current_hearts");
                             int maxHearts = rs.getInt("max_hearts");
-                            return rs.wasNull() ? null : maxHearts;
+                            Integer individualMax = rs.wasNull() ? null : maxHearts;
+                            states.put(UUID.fromString(rs.getString("uuid")),
+                                    new PlayerState(hearts, individualMax));
                         }
                     }
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not retrieve max hearts for UUID: " + uuid, e);
-            }
+                return null;
+            });
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not load player states for " + uuids.size() + " players", e);
         }
-        return null;
+        return states;
     }
 
-    public void setPlayerMaxHearts(UUID uuid, int maxHearts) {
-        String sql = "REPLACE INTO player_hearts (uuid, current_hearts, max_hearts) VALUES (?, ?, ?)";
-        int currentHearts = getPlayerHearts(uuid);
-        if (currentHearts == -1) {
-            currentHearts = plugin.getStartingHearts();
+    private static String loadPlayerStatesSql(int params) {
+        StringBuilder sql = new StringBuilder("SELECT uuid, current_hearts, max_hearts FROM player_hearts WHERE uuid IN (");
+        for (int i = 0; i < params; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
         }
-        
-        synchronized (connectionLock) {
-            Connection conn = null;
-            try {
-                conn = getConnection();
-                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                    pstmt.setString(1, uuid.toString());
-                    pstmt.setInt(2, currentHearts);
-                    pstmt.setInt(3, maxHearts);
-                    pstmt.executeUpdate();
+        return sql.append(')').toString();
+    }
+
+    public int getPlayerHearts(UUID uuid) {
+        String sql = "SELECT current_hearts FROM player_hearts WHERE uuid = ?";
+        try {
+            return read(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, uuid.toString());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getInt("current_hearts");
+                    }
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not set max hearts for UUID: " + uuid, e);
-            }
+                return -1;
+            });
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not retrieve hearts for UUID: " + uuid, e);
         }
+        return -1;
     }
 
-    public void addPluginBan(UUID uuid, String reason) {
-        String sql = "REPLACE INTO plugin_bans (uuid, reason, ban_timestamp) VALUES (?, ?, ?)";
-        long timestamp = System.currentTimeMillis(); // Record current time
+    /**
+     * Queues a heart update on the writer thread. The returned future completes once the
+     * batch containing it has been committed.
+     *
+     * @param hearts Read when the write runs rather than when it is queued, so writes queued out of
+     *               order by different threads still leave the latest value in the database.
+     */
+    public CompletableFuture<Void> queuePlayerHearts(UUID uuid, IntSupplier hearts) {
+        return writeExecutor.submit(setPlayerHeartsWork(uuid, hearts));
+    }
 
-        synchronized (connectionLock) {
-            Connection conn = null;
-            try {
-                conn = getConnection();
-                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                    pstmt.setString(1, uuid.toString());
-                    pstmt.setString(2, reason);
-                    pstmt.setLong(3, timestamp);
-                    pstmt.executeUpdate();
-                }
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not add plugin ban record for UUID: " + uuid, e);
+    /**
+     * Queues the row for a player seen for the first time. Does nothing if the row already exists,
+     * so a failed lookup can never reset an existing player's hearts.
+     */
+    public CompletableFuture<Void> queueNewPlayer(UUID uuid, int hearts) {
+        String sql = "INSERT OR IGNORE INTO player_hearts (uuid, current_hearts, max_hearts) VALUES (?, ?, NULL)";
+        return writeExecutor.submit(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setString(1, uuid.toString());
+            pstmt.setInt(2, hearts);
+            return pstmt.executeUpdate();
+        });
+    }
+
+    /**
+     * Queues heart updates for several players as a single write, so they are
+     * committed together in one transaction.
+     */
+    public CompletableFuture<Void> queuePlayerHeartsBatch(Map<UUID, Integer> heartsByPlayer) {
+        String sql = "INSERT INTO player_hearts (uuid, current_hearts, max_hearts) VALUES (?, ?, NULL)" +
+                     " ON CONFLICT(uuid) DO UPDATE SET current_hearts = excluded.current_hearts";
+        return writeExecutor.submit(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            for (Map.Entry<UUID, Integer> entry : heartsByPlayer.entrySet()) {
+                String uuid = entry.getKey().toString();
+                pstmt.setString(1, uuid);
+                pstmt.setInt(2, entry.getValue());
+                pstmt.addBatch();
             }
-        }
+            return pstmt.executeBatch();
+        });
     }
 
-    public boolean isPlayerBannedByPlugin(UUID uuid) {
-        String sql = "SELECT 1 FROM plugin_bans WHERE uuid = ? LIMIT 1";
-        synchronized (connectionLock) {
-            Connection conn = null;
-            try {
-                conn = getConnection();
-                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                    pstmt.setString(1, uuid.toString());
-                    try (ResultSet rs = pstmt.executeQuery()) {
-                        return rs.next();
+    /**
+     * Queues both sides of a heart transfer as one write, so they are committed in the same
+     * transaction and a crash can never leave a heart created or destroyed.
+     *
+     * Both heart counts are read when the write runs, as in {@link #queuePlayerHearts}.
+     *
+     * @param killerUuid The player gaining the heart, or null if only the victim changes.
+     */
+    public CompletableFuture<Void> queueHeartTransfer(UUID victimUuid, IntSupplier victimHearts,
+                                                      UUID killerUuid, IntSupplier killerHearts) {
+        SqlWork<Integer> victimWork = setPlayerHeartsWork(victimUuid, victimHearts);
+        SqlWork<Integer> killerWork = killerUuid != null ? setPlayerHeartsWork(killerUuid, killerHearts) : null;
+        return writeExecutor.submit(conn -> {
+            int updated = victimWork.run(conn);
+            if (killerWork != null) {
+                updated += killerWork.run(conn);
+            }
+            return updated;
+        });
+    }
+
+    private SqlWork<Integer> setPlayerHeartsWork(UUID uuid, IntSupplier hearts) {
+        String sql = "INSERT INTO player_hearts (uuid, current_hearts, max_hearts) VALUES (?, ?, NULL)" +
+                     " ON CONFLICT(uuid) DO UPDATE SET current_hearts = excluded.current_hearts";
+        return conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setString(1, uuid.toString());
+            pstmt.setInt(2, hearts.getAsInt());
+            return pstmt.executeUpdate();
+        };
+    }
+
+    public Integer getPlayerMaxHearts(UUID uuid) {
+        String sql = "SELECT max_hearts FROM player_hearts WHERE uuid = ?";
+        try {
+            return read(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, uuid.toString());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        int maxHearts = rs.getInt("max_hearts");
+                        return rs.wasNull() ? null : maxHearts;
                     }
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not check plugin ban status for UUID: " + uuid, e);
+                return null;
+            });
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not retrieve max hearts for UUID: " + uuid, e);
+        }
+        return null;
+    }
+
+    /**
+     * Queues a write of a player's hearts and individual heart limit from their cached state. Both
+     * are read when the write runs, as in {@link #queuePlayerHearts}.
+     */
+    public CompletableFuture<Void> queuePlayerState(UUID uuid, PlayerState state) {
+        String sql = "INSERT INTO player_hearts (uuid, current_hearts, max_hearts) VALUES (?, ?, ?)" +
+                     " ON CONFLICT(uuid) DO UPDATE SET current_hearts = excluded.current_hearts, max_hearts = excluded.max_hearts";
+        return writeExecutor.submit(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setString(1, uuid.toString());
+            pstmt.setInt(2, state.getHearts());
+            Integer maxHearts = state.getMaxHearts();
+            if (maxHearts != null) {
+                pstmt.setInt(3, maxHearts);
+            } else {
+                pstmt.setNull(3, Types.INTEGER);
             }
+            return pstmt.executeUpdate();
+        });
+    }
+
+    public void addPluginBan(UUID uuid, String reason) {
+        try {
+            write(addPluginBanWork(uuid, reason, System.currentTimeMillis()));
+            bannedPlayers.add(uuid);
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not add plugin ban record for UUID: " + uuid, e);
         }
-        return false;
     }
 
-    public boolean removePluginBan(UUID uuid) {
+    /**
+     * Queues a plugin ban on the writer thread. The ban index is updated straight away, since the
+     * player is already banned in-game and pre-login checks should see it immediately.
+     */
+    public CompletableFuture<Void> queuePluginBan(UUID uuid, String reason) {
+        bannedPlayers.add(uuid);
+        return writeExecutor.submit(addPluginBanWork(uuid, reason, System.currentTimeMillis()));
+    }
+
+    private SqlWork<Integer> addPluginBanWork(UUID uuid, String reason, long timestamp) {
+        String sql = "INSERT INTO plugin_bans (uuid, reason, ban_timestamp) VALUES (?, ?, ?)" +
+                     " ON CONFLICT(uuid) DO UPDATE SET reason = excluded.reason, ban_timestamp = excluded.ban_timestamp";
+        return conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setString(1, uuid.toString());
+            pstmt.setString(2, reason);
+            pstmt.setLong(3, timestamp);
+            return pstmt.executeUpdate();
+        };
+    }
+
+    /**
+     * Answered from the in-memory ban index, so it never touches the database.
+     */
+    public boolean isPlayerBannedByPlugin(UUID uuid) {
+        return bannedPlayers.contains(uuid);
+    }
+
+    /**
+     * Queues removal of a plugin ban on the writer thread. The ban index is updated straight away,
+     * so the player can log in before the delete has been committed.
+     *
+     * @return Completes once the delete has been committed, with whether the player was banned by
+     *         the plugin. Completes exceptionally if the delete failed, in which case the player is
+     *         put back in the ban index.
+     */
+    public CompletableFuture<Boolean> queueRemovePluginBan(UUID uuid) {
         String sql = "DELETE FROM plugin_bans WHERE uuid = ?";
-        synchronized (connectionLock) {
-            Connection conn = null;
-            try {
-                conn = getConnection();
-                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                    pstmt.setString(1, uuid.toString());
-                    int affectedRows = pstmt.executeUpdate();
-                    return affectedRows > 0;
+        // The index mirrors plugin_bans, so it answers whether the delete will remove a row.
+        boolean wasBanned = bannedPlayers.remove(uuid);
+        return writeExecutor.submit(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setString(1, uuid.toString());
+            return pstmt.executeUpdate();
+        }).handle((ignored, error) -> {
+            if (error != null) {
+                if (wasBanned) {
+                    bannedPlayers.add(uuid);
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not remove plugin ban record for UUID: " + uuid, e);
+                throw new CompletionException(error);
             }
-        }
-        return false;
+            return wasBanned;
+        });
     }
 
-    public void recordShrineUnban(UUID unbannedUuid, String unbannedName,
-                                  UUID performerUuid, String performerName) {
+    /**
+     * Queues a Blood Shrine unban for the shrine history on the writer thread.
+     */
+    public CompletableFuture<Void> queueShrineUnban(UUID unbannedUuid, String unbannedName,
+                                                    UUID performerUuid, String performerName) {
         String sql = "INSERT INTO shrine_unbans " +
                      "(unbanned_uuid, unbanned_name, performer_uuid, performer_name, timestamp) " +
                      "VALUES (?, ?, ?, ?, ?)";
-        synchronized (connectionLock) {
-            try {
-                Connection conn = getConnection();
-                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                    pstmt.setString(1, unbannedUuid.toString());
-                    pstmt.setString(2, unbannedName);
-                    pstmt.setString(3, performerUuid.toString());
-                    pstmt.setString(4, performerName);
-                    pstmt.setLong(5, System.currentTimeMillis());
-                    pstmt.executeUpdate();
-                }
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not record shrine unban for UUID: " + unbannedUuid, e);
+        long timestamp = System.currentTimeMillis();
+        CompletableFuture<Void> future = writeExecutor.submit(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setString(1, unbannedUuid.toString());
+            pstmt.setString(2, unbannedName);
+            pstmt.setString(3, performerUuid.toString());
+            pstmt.setString(4, performerName);
+            pstmt.setLong(5, timestamp);
+            return pstmt.executeUpdate();
+        });
+        future.whenComplete((ignored, error) -> {
+            if (error != null) {
+                plugin.getLogger().warning("Could not record shrine unban for UUID: " + unbannedUuid);
             }
-        }
+        });
+        return future;
     }
 
+    /**
+     * Number of players currently banned by the plugin, answered from the in-memory ban index.
+     */
     public int getTotalHeartBans() {
-        String sql = "SELECT COUNT(*) AS ban_count FROM plugin_bans";
-        int banCount = 0;
-        synchronized (connectionLock) {
-            Connection conn = null;
-            try {
-                conn = getConnection();
-                try (Statement stmt = conn.createStatement();
-                     ResultSet rs = stmt.executeQuery(sql)) {
-                    if (rs.next()) {
-                        banCount = rs.getInt("ban_count");
-                    }
+        return bannedPlayers.size();
+    }
+
+    /**
+     * Reads the statistics tables kept up to date by triggers and {@link #queueStatIncrement}.
+     * Runs on the writer thread like a queued write, so the result includes exactly the writes
+     * queued before it.
+     *
+     * @param sinceDay The first UTC day (yyyy-MM-dd) to read bans per day for.
+     */
+    public CompletableFuture<StatsSnapshot> queueReadStats(String sinceDay) {
+        AtomicReference<StatsSnapshot> snapshot = new AtomicReference<>();
+        return writeExecutor.submit(conn -> {
+            SortedMap<Integer, Integer> histogram = new TreeMap<>();
+            try (ResultSet rs = conn.prepare("SELECT hearts, players FROM heart_histogram WHERE players > 0").executeQuery()) {
+                while (rs.next()) {
+                    histogram.put(rs.getInt("hearts"), rs.getInt("players"));
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not retrieve total heart bans count from database!", e);
             }
-        }
-        return banCount;
+
+            SortedMap<String, Integer> bansPerDay = new TreeMap<>();
+            PreparedStatement bansStmt = conn.prepare("SELECT day, bans FROM ban_days WHERE day >= ?");
+            bansStmt.setString(1, sinceDay);
+            try (ResultSet rs = bansStmt.executeQuery()) {
+                while (rs.next()) {
+                    bansPerDay.put(rs.getString("day"), rs.getInt("bans"));
+                }
+            }
+
+            long totalBans;
+            try (ResultSet rs = conn.prepare("SELECT COALESCE(SUM(bans), 0) FROM ban_days").executeQuery()) {
+                totalBans = rs.next() ? rs.getLong(1) : 0L;
+            }
+
+            Map<String, Long> stats = new HashMap<>();
+            try (ResultSet rs = conn.prepare("SELECT stat, value FROM lifesteal_stats").executeQuery()) {
+                while (rs.next()) {
+                    stats.put(rs.getString("stat"), rs.getLong("value"));
+                }
+            }
+
+            snapshot.set(new StatsSnapshot(histogram, bansPerDay, totalBans, stats));
+            return null;
+        }).thenApply(ignored -> snapshot.get());
+    }
+
+    public CompletableFuture<Void> queueStatIncrement(String stat, long delta) {
+        String sql = "INSERT INTO lifesteal_stats (stat, value) VALUES (?, ?)" +
+                     " ON CONFLICT(stat) DO UPDATE SET value = value + excluded.value";
+        return writeExecutor.submit(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setString(1, stat);
+            pstmt.setLong(2, delta);
+            return pstmt.executeUpdate();
+        });
+    }
+
+    public WriteExecutor getWriteExecutor() {
+        return writeExecutor;
     }
 
 }
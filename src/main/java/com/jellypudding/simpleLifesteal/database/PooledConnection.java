@@ -0,0 +1,61 @@
+package com.jellypudding.simpleLifesteal.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A single SQLite connection together with the prepared statements created on it.
+ * Statements are kept open and reused between calls, so a caller must have exclusive
+ * use of the connection for as long as it is working with a statement.
+ */
+class PooledConnection {
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    PooledConnection(Connection connection) {
+        this.connection = connection;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Returns a cached statement for the given SQL, preparing it on first use.
+     * Parameters from any previous use are cleared.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt == null || stmt.isClosed()) {
+            stmt = connection.prepareStatement(sql);
+            statements.put(sql, stmt);
+        } else {
+            stmt.clearParameters();
+        }
+        return stmt;
+    }
+
+    boolean isClosed() {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    void close() throws SQLException {
+        for (PreparedStatement stmt : statements.values()) {
+            try {
+                stmt.close();
+            } catch (SQLException ignored) {
+                // The connection is being closed anyway.
+            }
+        }
+        statements.clear();
+        connection.close();
+    }
+}
@@ -0,0 +1,51 @@
+package com.jellypudding.simpleLifesteal.database;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The statistics tables as read by {@link DatabaseManager#queueReadStats(String)}.
+ */
+public final class StatsSnapshot {
+
+    private final SortedMap<Integer, Integer> heartHistogram;
+    private final SortedMap<String, Integer> bansPerDay;
+    private final long totalBans;
+    private final Map<String, Long> stats;
+
+    StatsSnapshot(SortedMap<Integer, Integer> heartHistogram, SortedMap<String, Integer> bansPerDay,
+                  long totalBans, Map<String, Long> stats) {
+        this.heartHistogram = heartHistogram;
+        this.bansPerDay = bansPerDay;
+        this.totalBans = totalBans;
+        this.stats = stats;
+    }
+
+    /**
+     * Number of players per heart count.
+     */
+    public SortedMap<Integer, Integer> getHeartHistogram() {
+        return heartHistogram;
+    }
+
+    /**
+     * Bans per UTC day (yyyy-MM-dd), from the day given to the read onwards.
+     */
+    public SortedMap<String, Integer> getBansPerDay() {
+        return bansPerDay;
+    }
+
+    /**
+     * Every ban recorded since the statistics tables were built, including ones lifted since.
+     */
+    public long getTotalBans() {
+        return totalBans;
+    }
+
+    /**
+     * Returns a counter from lifesteal_stats, or 0 if it has never been incremented.
+     */
+    public long getStat(String stat) {
+        return stats.getOrDefault(stat, 0L);
+    }
+}
@@ -0,0 +1,283 @@
+package com.jellypudding.simpleLifesteal.database;
+
+import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * A single background thread that owns all queued database writes. Writes are drained from a
+ * bounded queue and committed together in one transaction per batch, so a burst of heart changes
+ * costs one commit instead of one per change.
+ * <p>
+ * Futures are completed on a separate callback thread, never on the writer itself. Callbacks may
+ * take locks that a thread blocked on a full queue is holding; if they ran on the writer, the queue
+ * would never drain and both threads would wait forever.
+ */
+public class WriteExecutor {
+
+    private static final long IDLE_POLL_MILLIS = 250;
+
+    private final SimpleLifesteal plugin;
+    private final DatabaseManager databaseManager;
+    private final BlockingQueue<PendingWrite> queue;
+    private final int maxBatchSize;
+    private final long maxBatchDelayNanos;
+    // Runs future completions (and so every dependent callback) off the writer thread.
+    private final ExecutorService callbacks;
+
+    private Thread thread;
+    private volatile boolean running = false;
+    private volatile boolean backPressureWarned = false;
+
+    private final AtomicLong committedBatches = new AtomicLong();
+    private final AtomicLong committedWrites = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong totalCommitNanos = new AtomicLong();
+    private volatile long lastCommitNanos = 0;
+    private volatile long maxCommitNanos = 0;
+
+    private static final class PendingWrite {
+        private final DatabaseManager.SqlWork<?> work;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingWrite(DatabaseManager.SqlWork<?> work) {
+            this.work = work;
+        }
+    }
+
+    WriteExecutor(SimpleLifesteal plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        int capacity = Math.max(16, plugin.getConfig().getInt("database.write-queue.capacity", 10000));
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = Math.max(1, plugin.getConfig().getInt("database.write-queue.max-batch-size", 256));
+        this.maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(
+                Math.max(0, plugin.getConfig().getLong("database.write-queue.max-batch-delay-ms", 50)));
+        this.callbacks = Executors.newSingleThreadExecutor(task -> {
+            Thread callbackThread = new Thread(task, "SimpleLifesteal-DatabaseCallbacks");
+            callbackThread.setDaemon(true);
+            return callbackThread;
+        });
+    }
+
+    synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "SimpleLifesteal-DatabaseWriter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops accepting queued work, waits for the writer thread to commit everything already queued
+     * and then applies anything left over on the calling thread.
+     */
+    void shutdown() {
+        Thread writerThread;
+        synchronized (this) {
+            running = false;
+            writerThread = thread;
+            thread = null;
+        }
+        if (writerThread != null) {
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        List<PendingWrite> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        if (!leftover.isEmpty()) {
+            plugin.getLogger().warning("Applying " + leftover.size() + " queued database write(s) during shutdown.");
+            commit(leftover);
+        }
+
+        callbacks.shutdown();
+        try {
+            callbacks.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a write. The returned future completes once the write has been committed.
+     * If the queue is full the caller blocks until there is space, so no write is ever dropped.
+     */
+    CompletableFuture<Void> submit(DatabaseManager.SqlWork<?> work) {
+        PendingWrite pending = new PendingWrite(work);
+        if (running) {
+            if (queue.offer(pending)) {
+                return pending.future;
+            }
+            if (!backPressureWarned) {
+                backPressureWarned = true;
+                plugin.getLogger().warning("Database write queue is full (" + queue.size() + " pending). Callers will wait for space.");
+            }
+            try {
+                queue.put(pending);
+                return pending.future;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Not running (startup/shutdown) or interrupted: apply on the calling thread.
+        List<PendingWrite> single = new ArrayList<>(1);
+        single.add(pending);
+        commit(single);
+        return pending.future;
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + maxBatchDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) {
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                commit(batch);
+            } catch (InterruptedException e) {
+                // Keep draining; shutdown is signalled through the running flag.
+            } catch (Throwable t) {
+                plugin.getLogger().log(Level.SEVERE, "Unexpected error in database writer thread", t);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        long start = System.nanoTime();
+        try {
+            runInTransaction(batch);
+            recordCommit(System.nanoTime() - start, batch.size());
+            for (PendingWrite pending : batch) {
+                complete(pending, null);
+            }
+        } catch (SQLException e) {
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+                return;
+            }
+            // One bad write should not take the rest of the batch with it, so retry them one by one.
+            // Each retry still gets its own transaction, so a multi-statement write stays all-or-nothing.
+            plugin.getLogger().log(Level.WARNING, "Batched database commit of " + batch.size() + " writes failed. Retrying individually.", e);
+            for (PendingWrite pending : batch) {
+                long retryStart = System.nanoTime();
+                try {
+                    runInTransaction(List.of(pending));
+                    recordCommit(System.nanoTime() - retryStart, 1);
+                    complete(pending, null);
+                } catch (SQLException retryError) {
+                    fail(pending, retryError);
+                }
+            }
+        }
+    }
+
+    private void runInTransaction(List<PendingWrite> writes) throws SQLException {
+        databaseManager.write(conn -> {
+            Connection connection = conn.getConnection();
+            connection.setAutoCommit(false);
+            try {
+                for (PendingWrite pending : writes) {
+                    pending.work.run(conn);
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return null;
+        });
+    }
+
+    private void fail(PendingWrite pending, SQLException e) {
+        failedWrites.incrementAndGet();
+        plugin.getLogger().log(Level.SEVERE, "Queued database write failed", e);
+        complete(pending, e);
+    }
+
+    /**
+     * Completes a write's future on the callback thread. Once that has been shut down (after the
+     * writer has stopped) nothing can be waiting on the queue, so it completes inline instead.
+     */
+    private void complete(PendingWrite pending, Throwable error) {
+        Runnable completion = error == null
+                ? () -> pending.future.complete(null)
+                : () -> pending.future.completeExceptionally(error);
+        try {
+            callbacks.execute(completion);
+        } catch (RejectedExecutionException e) {
+            completion.run();
+        }
+    }
+
+    private void recordCommit(long nanos, int writes) {
+        committedBatches.incrementAndGet();
+        committedWrites.addAndGet(writes);
+        totalCommitNanos.addAndGet(nanos);
+        lastCommitNanos = nanos;
+        if (nanos > maxCommitNanos) {
+            maxCommitNanos = nanos;
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getCommittedBatches() {
+        return committedBatches.get();
+    }
+
+    public long getCommittedWrites() {
+        return committedWrites.get();
+    }
+
+    public long getFailedWrites() {
+        return failedWrites.get();
+    }
+
+    public double getLastCommitMillis() {
+        return lastCommitNanos / 1_000_000.0;
+    }
+
+    public double getMaxCommitMillis() {
+        return maxCommitNanos / 1_000_000.0;
+    }
+
+    public double getAverageCommitMillis() {
+        long batches = committedBatches.get();
+        return batches == 0 ? 0.0 : (totalCommitNanos.get() / (double) batches) / 1_000_000.0;
+    }
+}
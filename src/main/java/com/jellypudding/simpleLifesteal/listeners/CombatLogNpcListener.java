@@ -0,0 +1,97 @@
+package com.jellypudding.simpleLifesteal.listeners;
+
+import com.destroystokyo.paper.event.entity.EntityAddToWorldEvent;
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Villager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.CreatureSpawnEvent;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps track of the BattleLock combat log NPCs currently in the world, so damage and death
+ * events against ordinary villagers are rejected with a map lookup instead of a persistent data
+ * read. When an NPC appears, its logger's hearts are loaded in the background so killing it
+ * needs no database query on the main thread.
+ */
+public class CombatLogNpcListener implements Listener {
+
+    private final SimpleLifesteal plugin;
+    private final NamespacedKey battleLockKey;
+
+    // NPC entity UUID -> combat logger UUID. Main thread only.
+    private final Map<UUID, UUID> combatLogNpcs = new HashMap<>();
+
+    public CombatLogNpcListener(SimpleLifesteal plugin) {
+        this.plugin = plugin;
+        this.battleLockKey = new NamespacedKey("battlelock", "combat_log_player_id");
+
+        // Pick up NPCs that were already loaded (e.g. after a reload).
+        for (World world : Bukkit.getWorlds()) {
+            for (Villager villager : world.getEntitiesByClass(Villager.class)) {
+                track(villager);
+            }
+        }
+    }
+
+    /**
+     * Returns the UUID of the player a combat log NPC stands in for, or null if the entity is not one.
+     */
+    public UUID getCombatLogger(UUID entityUuid) {
+        return combatLogNpcs.get(entityUuid);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityAdd(EntityAddToWorldEvent event) {
+        if (event.getEntity() instanceof Villager villager) {
+            track(villager);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onCustomSpawn(CreatureSpawnEvent event) {
+        if (event.getSpawnReason() != CreatureSpawnEvent.SpawnReason.CUSTOM
+                || !(event.getEntity() instanceof Villager villager)) {
+            return;
+        }
+        // BattleLock may tag the NPC after spawning it, so look again once it has done so.
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (villager.isValid()) {
+                track(villager);
+            }
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityRemove(EntityRemoveFromWorldEvent event) {
+        UUID combatLoggerUuid = combatLogNpcs.remove(event.getEntity().getUniqueId());
+        if (combatLoggerUuid != null) {
+            plugin.getPlayerDataManager().releaseOfflinePlayer(combatLoggerUuid);
+        }
+    }
+
+    private void track(Entity entity) {
+        if (combatLogNpcs.containsKey(entity.getUniqueId())) return;
+
+        String playerUuidString = entity.getPersistentDataContainer().get(battleLockKey, PersistentDataType.STRING);
+        if (playerUuidString == null) return;
+
+        try {
+            UUID combatLoggerUuid = UUID.fromString(playerUuidString);
+            combatLogNpcs.put(entity.getUniqueId(), combatLoggerUuid);
+            plugin.getPlayerDataManager().prefetchOfflinePlayer(combatLoggerUuid);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Ignoring BattleLock NPC with an invalid player UUID: " + playerUuidString);
+        }
+    }
+}
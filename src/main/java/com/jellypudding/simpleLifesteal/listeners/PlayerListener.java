@@ -1,17 +1,23 @@
 package com.jellypudding.simpleLifesteal.listeners;
 
 import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+import com.jellypudding.simpleLifesteal.managers.BanPipeline;
+import com.jellypudding.simpleLifesteal.managers.BroadcastAggregator;
+import com.jellypudding.simpleLifesteal.managers.HeartTransfer;
 import com.jellypudding.simpleLifesteal.managers.PlayerDataManager;
+import com.jellypudding.simpleLifesteal.utils.BlockInteractionTable;
 import com.jellypudding.simpleLifesteal.utils.HeartItemUtil;
 import com.jellypudding.simpleLifesteal.utils.PlayerNameUtil;
+import com.destroystokyo.paper.profile.PlayerProfile;
+import io.papermc.paper.ban.BanListType;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.BanList;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.NamespacedKey;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
@@ -25,46 +31,80 @@ import org.bukkit.event.block.Action;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.inventory.CraftItemEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerItemConsumeEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.persistence.PersistentDataType;
 
-import java.awt.Color;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.UUID;
 import java.util.logging.Level;
 
 public class PlayerListener implements Listener {
 
+    private static final String HEART_STEAL = "heart-steal";
+
     private final SimpleLifesteal plugin;
     private final PlayerDataManager playerDataManager;
     private final HeartItemUtil heartItemUtil;
-    private final NamespacedKey battleLockKey;
+    private final CombatLogNpcListener combatLogNpcs;
+    private final BlockInteractionTable blockInteractions;
+    private final BanPipeline banPipeline;
 
     public PlayerListener(SimpleLifesteal plugin) {
         this.plugin = plugin;
         this.playerDataManager = plugin.getPlayerDataManager();
         this.heartItemUtil = plugin.getHeartItemUtil();
-        this.battleLockKey = new NamespacedKey("battlelock", "combat_log_player_id");
+        this.combatLogNpcs = plugin.getCombatLogNpcListener();
+        this.blockInteractions = new BlockInteractionTable(plugin);
+        this.banPipeline = new BanPipeline(plugin);
     }
 
     @EventHandler(priority = EventPriority.LOW)
-    public void onPlayerJoin(PlayerJoinEvent event) {
-        Player player = event.getPlayer();
-        UUID playerUuid = player.getUniqueId();
+    public void onBannedPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        // Answered from the ban index; the game ban list is only consulted for players in it.
+        if (!plugin.getDatabaseManager().isPlayerBannedByPlugin(event.getUniqueId())) {
+            return;
+        }
+        // Only reject while the game ban is still in place. A player pardoned with the vanilla
+        // command is let through so their hearts are reset on join, and their plugin ban is
+        // dropped so later logins skip the ban list again.
+        BanList<PlayerProfile> banList = Bukkit.getBanList(BanListType.PROFILE);
+        if (!banList.isBanned(event.getPlayerProfile())) {
+            plugin.getDatabaseManager().queueRemovePluginBan(event.getUniqueId());
+            return;
+        }
+        event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_BANNED,
+                LegacyComponentSerializer.legacyAmpersand().deserialize(plugin.getBanMessage()));
+    }
 
-        if (plugin.getGracePeriodManager() != null && plugin.getGracePeriodManager().handlePlayerJoin(player)) {
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
             return;
         }
+        // Already off the main thread, so read the player's data here and let the join promote it.
+        playerDataManager.prefetchPlayerData(event.getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.LOW)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        UUID playerUuid = player.getUniqueId();
 
-        playerDataManager.loadPlayerData(player, loadedHearts -> {
+        // Players starting a grace period are handled inside loadPlayerData and skip this callback.
+        playerDataManager.loadPlayerData(player, loadedState -> {
             if (!player.isOnline()) return;
-            if (loadedHearts <= 0) {
+            if (loadedState.getHearts() <= 0) {
                 int startingHearts = plugin.getStartingHearts();
                 plugin.getLogger().info(player.getName() + " joined with 0 hearts. Resetting to " + startingHearts + ".");
                 playerDataManager.setPlayerHearts(playerUuid, startingHearts);
@@ -76,11 +116,6 @@ public class PlayerListener implements Listener {
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent event) {
         UUID playerUuid = event.getPlayer().getUniqueId();
-
-        if (plugin.getGracePeriodManager() != null && plugin.getGracePeriodManager().handlePlayerQuit(playerUuid)) {
-            return;
-        }
-
         playerDataManager.savePlayerData(playerUuid, true);
     }
 
@@ -101,9 +136,10 @@ public class PlayerListener implements Listener {
             return;
         }
 
-        int currentHearts = playerDataManager.getPlayerHearts(victim.getUniqueId());
-        int newHearts = Math.max(0, currentHearts - 1);
-        playerDataManager.removeHearts(victim.getUniqueId(), 1);
+        boolean hasKiller = killer != null && !killer.equals(victim);
+        UUID heartRecipient = hasKiller && !killerInGracePeriod ? killer.getUniqueId() : null;
+        HeartTransfer transfer = playerDataManager.transferHeart(victim.getUniqueId(), heartRecipient);
+        int newHearts = transfer.getVictimHearts();
 
         if (newHearts > 0) {
             victim.sendMessage(Component.text("You lost a heart! You now have " + newHearts + (newHearts == 1 ? " heart." : " hearts."), NamedTextColor.RED));
@@ -112,24 +148,20 @@ public class PlayerListener implements Listener {
             banPlayer(victim);
         }
 
-        if (killer != null && !killer.equals(victim)) {
+        if (hasKiller) {
             if (killerInGracePeriod) {
                 killer.sendMessage(Component.text("You are in your grace period. No heart gained.", NamedTextColor.GRAY));
+            } else if (transfer.isKillerFull()) {
+                boolean dropped = giveOrDropHeartItem(killer);
+                killer.sendMessage(Component.text("You stole a heart, but your hearts are full! A heart item was "
+                        + (dropped ? "dropped at your feet" : "added to your inventory") + ".", NamedTextColor.GREEN));
             } else {
-                int killerCurrentHearts = playerDataManager.getPlayerHearts(killer.getUniqueId());
-                int killerMaxHearts = plugin.getPlayerMaxHearts(killer.getUniqueId());
-
-                if (killerCurrentHearts >= killerMaxHearts) {
-                    boolean dropped = giveOrDropHeartItem(killer);
-                    killer.sendMessage(Component.text("You stole a heart, but your hearts are full! A heart item was "
-                            + (dropped ? "dropped at your feet" : "added to your inventory") + ".", NamedTextColor.GREEN));
-                } else {
-                    playerDataManager.addHearts(killer.getUniqueId(), 1);
-                    int killerNewHearts = playerDataManager.getPlayerHearts(killer.getUniqueId());
-                    killer.sendMessage(Component.text("You stole a heart! You now have ", NamedTextColor.GREEN)
-                            .append(Component.text(killerNewHearts, NamedTextColor.RED))
-                            .append(Component.text((killerNewHearts == 1 ? " heart." : " hearts."), NamedTextColor.GREEN)));
-                }
+                int killerNewHearts = transfer.getKillerHearts();
+                plugin.getBroadcastAggregator().send(killer, HEART_STEAL,
+                        Component.text("You stole a heart! You now have ", NamedTextColor.GREEN)
+                                .append(Component.text(killerNewHearts, NamedTextColor.RED))
+                                .append(Component.text((killerNewHearts == 1 ? " heart." : " hearts."), NamedTextColor.GREEN)),
+                        victim.displayName(), killerNewHearts, PlayerListener::summariseHeartSteals);
             }
         }
     }
@@ -140,14 +172,13 @@ public class PlayerListener implements Listener {
             return;
         }
 
-        // Check if this is a BattleLock combat log NPC
-        if (!npc.getPersistentDataContainer().has(battleLockKey, PersistentDataType.STRING)) {
+        // Check if this is a BattleLock combat log NPC (a set lookup; ordinary villagers stop here)
+        UUID combatLoggerUuid = combatLogNpcs.getCombatLogger(npc.getUniqueId());
+        if (combatLoggerUuid == null) {
             return;
         }
 
-        String playerUuidString = npc.getPersistentDataContainer().get(battleLockKey, PersistentDataType.STRING);
         try {
-            UUID combatLoggerUuid = UUID.fromString(playerUuidString);
             OfflinePlayer combatLogger = Bukkit.getOfflinePlayer(combatLoggerUuid);
             String loggerName = combatLogger.getName() != null ? combatLogger.getName() : combatLoggerUuid.toString();
             Component loggerDisplayName = PlayerNameUtil.getFormattedPlayerName(plugin.getChromaTagAPI(), combatLoggerUuid, loggerName);
@@ -161,11 +192,29 @@ public class PlayerListener implements Listener {
             boolean loggerInGracePeriod = plugin.getGracePeriodManager() != null &&
                 plugin.getGracePeriodManager().checkGracePeriodEligibility(combatLoggerUuid);
 
+            Player killer = null;
+            Entity damager = event.getDamager();
+
+            if (damager instanceof Player) {
+                killer = (Player) damager;
+            } else if (damager instanceof Projectile projectile) {
+                if (projectile.getShooter() instanceof Player shooter) {
+                    killer = shooter;
+                }
+            }
+
+            if (killer != null && killer.getUniqueId().equals(combatLoggerUuid)) {
+                plugin.getLogger().warning("Killer was the same as the combat logger. No heart added.");
+                killer = null;
+            }
+            boolean killerInGracePeriod = killer != null && plugin.isPlayerInGracePeriod(killer.getUniqueId());
+
+            HeartTransfer transfer = null;
             if (originalLoggerHearts > 0 && !loggerInGracePeriod) {
-                int newLoggerHearts = Math.max(0, originalLoggerHearts - 1);
-                playerDataManager.removeHearts(combatLoggerUuid, 1);
+                UUID heartRecipient = killer != null && !killerInGracePeriod ? killer.getUniqueId() : null;
+                transfer = playerDataManager.transferHeart(combatLoggerUuid, heartRecipient);
 
-                if (newLoggerHearts <= 0) {
+                if (transfer.getVictimHearts() <= 0) {
                     if (combatLogger != null) {
                         plugin.getLogger().info("Combat logger " + loggerName + " reached 0 hearts. Banning...");
                         banOfflinePlayer(combatLogger, npc.getLocation());
@@ -178,55 +227,32 @@ public class PlayerListener implements Listener {
                 plugin.getLogger().warning("Combat logger " + loggerName + " already had 0 or fewer hearts (" + originalLoggerHearts + "). No action taken.");
             }
 
-            Player killer = null;
-            Entity damager = event.getDamager();
-
-            if (damager instanceof Player) {
-                killer = (Player) damager;
-            } else if (damager instanceof Projectile projectile) {
-                if (projectile.getShooter() instanceof Player shooter) {
-                    killer = shooter;
-                }
-            }
-
             if (killer != null) {
-                if (!killer.getUniqueId().equals(combatLoggerUuid)) {
-                    boolean killerInGracePeriod = plugin.isPlayerInGracePeriod(killer.getUniqueId());
-
-                    if (loggerInGracePeriod) {
-                        killer.sendMessage(loggerDisplayName
-                            .append(Component.text(" is in their grace period. No heart stolen.", NamedTextColor.GRAY)));
-                    } else if (killerInGracePeriod) {
-                        killer.sendMessage(Component.text("You are in your grace period. No heart gained.", NamedTextColor.GRAY));
-                    } else {
-                        int killerCurrentHearts = playerDataManager.getPlayerHearts(killer.getUniqueId());
-                        int killerMaxHearts = plugin.getPlayerMaxHearts(killer.getUniqueId());
-
-                        if (killerCurrentHearts >= killerMaxHearts) {
-                            boolean dropped = giveOrDropHeartItem(killer);
-                            killer.sendMessage(Component.text("You killed ", NamedTextColor.GREEN)
-                                    .append(loggerDisplayName)
-                                    .append(Component.text("'s combat logged NPC, but your hearts are full! A heart item was "
-                                            + (dropped ? "dropped at your feet" : "added to your inventory") + ".", NamedTextColor.GREEN)));
-                        } else {
-                            playerDataManager.addHearts(killer.getUniqueId(), 1);
-                            int killerNewHearts = playerDataManager.getPlayerHearts(killer.getUniqueId());
-                            killer.sendMessage(Component.text("You killed ", NamedTextColor.GREEN)
+                if (loggerInGracePeriod) {
+                    killer.sendMessage(loggerDisplayName
+                        .append(Component.text(" is in their grace period. No heart stolen.", NamedTextColor.GRAY)));
+                } else if (killerInGracePeriod) {
+                    killer.sendMessage(Component.text("You are in your grace period. No heart gained.", NamedTextColor.GRAY));
+                } else if (transfer != null && transfer.isKillerFull()) {
+                    boolean dropped = giveOrDropHeartItem(killer);
+                    killer.sendMessage(Component.text("You killed ", NamedTextColor.GREEN)
+                            .append(loggerDisplayName)
+                            .append(Component.text("'s combat logged NPC, but your hearts are full! A heart item was "
+                                    + (dropped ? "dropped at your feet" : "added to your inventory") + ".", NamedTextColor.GREEN)));
+                } else if (transfer != null) {
+                    int killerNewHearts = transfer.getKillerHearts();
+                    plugin.getBroadcastAggregator().send(killer, HEART_STEAL,
+                            Component.text("You killed ", NamedTextColor.GREEN)
                                     .append(loggerDisplayName)
                                     .append(Component.text("'s combat logged NPC and stole a heart! You now have ", NamedTextColor.GREEN))
                                     .append(Component.text(killerNewHearts, NamedTextColor.RED))
-                                    .append(Component.text((killerNewHearts == 1 ? " heart." : " hearts."), NamedTextColor.GREEN)));
-                        }
-                    }
-                } else {
-                     plugin.getLogger().warning("Killer was the same as the combat logger. No heart added.");
+                                    .append(Component.text((killerNewHearts == 1 ? " heart." : " hearts."), NamedTextColor.GREEN)),
+                            loggerDisplayName, killerNewHearts, PlayerListener::summariseHeartSteals);
                 }
             }
 
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().log(Level.SEVERE, "Error parsing BattleLock NPC UUID from damage event: " + playerUuidString, e);
         } catch (Exception e) {
-            plugin.getLogger().log(Level.SEVERE, "An unexpected error occurred processing BattleLock NPC death from damage event: " + playerUuidString, e);
+            plugin.getLogger().log(Level.SEVERE, "An unexpected error occurred processing BattleLock NPC death from damage event: " + combatLoggerUuid, e);
         }
     }
 
@@ -236,14 +262,13 @@ public class PlayerListener implements Listener {
             return;
         }
 
-        // Check if this is a BattleLock combat log NPC
-        if (!npc.getPersistentDataContainer().has(battleLockKey, PersistentDataType.STRING)) {
+        // Check if this is a BattleLock combat log NPC (a set lookup; ordinary villagers stop here)
+        UUID combatLoggerUuid = combatLogNpcs.getCombatLogger(npc.getUniqueId());
+        if (combatLoggerUuid == null) {
             return;
         }
 
-        String playerUuidString = npc.getPersistentDataContainer().get(battleLockKey, PersistentDataType.STRING);
         try {
-            UUID combatLoggerUuid = UUID.fromString(playerUuidString);
             OfflinePlayer combatLogger = Bukkit.getOfflinePlayer(combatLoggerUuid);
             String loggerName = combatLogger.getName() != null ? combatLogger.getName() : combatLoggerUuid.toString();
 
@@ -257,8 +282,7 @@ public class PlayerListener implements Listener {
                 plugin.getGracePeriodManager().checkGracePeriodEligibility(combatLoggerUuid);
 
             if (originalLoggerHearts > 0 && !loggerInGracePeriod) {
-                int newLoggerHearts = Math.max(0, originalLoggerHearts - 1);
-                playerDataManager.removeHearts(combatLoggerUuid, 1);
+                int newLoggerHearts = playerDataManager.transferHeart(combatLoggerUuid, null).getVictimHearts();
 
                 plugin.getLogger().info("Combat logger " + loggerName + " lost a heart due to environmental NPC death. Hearts: " + originalLoggerHearts + " -> " + newLoggerHearts);
 
@@ -274,10 +298,8 @@ public class PlayerListener implements Listener {
                 plugin.getLogger().warning("Combat logger " + loggerName + " already had 0 or fewer hearts (" + originalLoggerHearts + "). No action taken.");
             }
 
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().log(Level.SEVERE, "Error parsing BattleLock NPC UUID from death event: " + playerUuidString, e);
         } catch (Exception e) {
-            plugin.getLogger().log(Level.SEVERE, "An unexpected error occurred processing BattleLock NPC death from death event: " + playerUuidString, e);
+            plugin.getLogger().log(Level.SEVERE, "An unexpected error occurred processing BattleLock NPC death from death event: " + combatLoggerUuid, e);
         }
     }
 
@@ -291,19 +313,20 @@ public class PlayerListener implements Listener {
             return;
         }
 
+        // Heart items are apples; anything else is rejected before touching its meta
+        ItemStack item = event.getItem();
+        if (item == null || item.getType() != Material.APPLE) {
+            return;
+        }
+
         // If right-clicking on a block with interactions, don't consume the heart
         if (action == Action.RIGHT_CLICK_BLOCK) {
             Block clickedBlock = event.getClickedBlock();
-            if (clickedBlock != null && hasBlockInteraction(clickedBlock.getType())) {
+            if (clickedBlock != null && blockInteractions.hasInteraction(clickedBlock.getType())) {
                 return;
             }
         }
 
-        ItemStack item = event.getItem();
-        if (item == null || item.getItemMeta() == null) {
-            return;
-        }
-
         if (heartItemUtil.isHeartItem(item)) {
             // Cancel the event to prevent normal item interaction
             event.setCancelled(true);
@@ -346,60 +369,36 @@ public class PlayerListener implements Listener {
         }
     }
 
-    @EventHandler(priority = EventPriority.HIGHEST)
-    public void onHeartItemConsume(PlayerItemConsumeEvent event) {
-        ItemStack item = event.getItem();
-        if (item == null || item.getItemMeta() == null) {
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onHeartCraft(CraftItemEvent event) {
+        if (!heartItemUtil.isHeartItem(event.getRecipe().getResult())) {
             return;
         }
+        int crafted = 1;
+        if (event.isShiftClick()) {
+            // Shift-click crafts as many as the scarcest ingredient allows.
+            crafted = Integer.MAX_VALUE;
+            for (ItemStack ingredient : event.getInventory().getMatrix()) {
+                if (ingredient != null && !ingredient.getType().isAir()) {
+                    crafted = Math.min(crafted, ingredient.getAmount());
+                }
+            }
+            if (crafted == Integer.MAX_VALUE) crafted = 1;
+        }
+        plugin.getStatsManager().recordItemsMinted(crafted);
+    }
 
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onHeartItemConsume(PlayerItemConsumeEvent event) {
         // Prevent normal consumption of heart apples - they should only be consumed via right-click.
-        if (heartItemUtil.isHeartItem(item)) {
+        if (heartItemUtil.isHeartItem(event.getItem())) {
             event.setCancelled(true);
         }
     }
 
-    private boolean hasBlockInteraction(Material material) {
-        return switch (material) {
-            // Storage blocks
-            case CHEST, TRAPPED_CHEST, ENDER_CHEST, BARREL,
-                 SHULKER_BOX, WHITE_SHULKER_BOX, ORANGE_SHULKER_BOX, MAGENTA_SHULKER_BOX, LIGHT_BLUE_SHULKER_BOX, YELLOW_SHULKER_BOX, LIME_SHULKER_BOX, PINK_SHULKER_BOX, GRAY_SHULKER_BOX, LIGHT_GRAY_SHULKER_BOX, CYAN_SHULKER_BOX, PURPLE_SHULKER_BOX, BLUE_SHULKER_BOX, BROWN_SHULKER_BOX, GREEN_SHULKER_BOX, RED_SHULKER_BOX, BLACK_SHULKER_BOX,
-
-            // Copper chests
-                 COPPER_CHEST, EXPOSED_COPPER_CHEST, WEATHERED_COPPER_CHEST, OXIDIZED_COPPER_CHEST,
-                 WAXED_COPPER_CHEST, WAXED_EXPOSED_COPPER_CHEST, WAXED_WEATHERED_COPPER_CHEST, WAXED_OXIDIZED_COPPER_CHEST,
-
-            // Utility/crafting blocks
-                 CRAFTING_TABLE, ENCHANTING_TABLE, ANVIL, CHIPPED_ANVIL, DAMAGED_ANVIL,
-                 FURNACE, BLAST_FURNACE, SMOKER, BREWING_STAND,
-                 GRINDSTONE, LOOM, STONECUTTER, CARTOGRAPHY_TABLE, FLETCHING_TABLE, SMITHING_TABLE,
-                 CRAFTER, CHISELED_BOOKSHELF, LECTERN, COMPOSTER,
-                 DISPENSER, DROPPER, HOPPER,
-                 JUKEBOX, NOTE_BLOCK, DECORATED_POT,
-                 BEEHIVE, BEE_NEST, CAMPFIRE, SOUL_CAMPFIRE, BELL,
-                 RESPAWN_ANCHOR, LODESTONE,
-
-            // Doors
-                 ACACIA_DOOR, BIRCH_DOOR, DARK_OAK_DOOR, JUNGLE_DOOR, OAK_DOOR, SPRUCE_DOOR, MANGROVE_DOOR, CHERRY_DOOR, BAMBOO_DOOR, PALE_OAK_DOOR, CRIMSON_DOOR, WARPED_DOOR, IRON_DOOR,
-                 COPPER_DOOR, EXPOSED_COPPER_DOOR, WEATHERED_COPPER_DOOR, OXIDIZED_COPPER_DOOR,
-                 WAXED_COPPER_DOOR, WAXED_EXPOSED_COPPER_DOOR, WAXED_WEATHERED_COPPER_DOOR, WAXED_OXIDIZED_COPPER_DOOR,
-
-            // Trapdoors
-                 ACACIA_TRAPDOOR, BIRCH_TRAPDOOR, DARK_OAK_TRAPDOOR, JUNGLE_TRAPDOOR, OAK_TRAPDOOR, SPRUCE_TRAPDOOR, MANGROVE_TRAPDOOR, CHERRY_TRAPDOOR, BAMBOO_TRAPDOOR, PALE_OAK_TRAPDOOR, CRIMSON_TRAPDOOR, WARPED_TRAPDOOR, IRON_TRAPDOOR,
-                 COPPER_TRAPDOOR, EXPOSED_COPPER_TRAPDOOR, WEATHERED_COPPER_TRAPDOOR, OXIDIZED_COPPER_TRAPDOOR,
-                 WAXED_COPPER_TRAPDOOR, WAXED_EXPOSED_COPPER_TRAPDOOR, WAXED_WEATHERED_COPPER_TRAPDOOR, WAXED_OXIDIZED_COPPER_TRAPDOOR,
-
-            // Buttons
-                 LEVER, ACACIA_BUTTON, BIRCH_BUTTON, DARK_OAK_BUTTON, JUNGLE_BUTTON, OAK_BUTTON, SPRUCE_BUTTON, MANGROVE_BUTTON, CHERRY_BUTTON, BAMBOO_BUTTON, PALE_OAK_BUTTON, CRIMSON_BUTTON, WARPED_BUTTON, STONE_BUTTON, POLISHED_BLACKSTONE_BUTTON,
-
-            // Fence gates
-                 ACACIA_FENCE_GATE, BIRCH_FENCE_GATE, DARK_OAK_FENCE_GATE, JUNGLE_FENCE_GATE, OAK_FENCE_GATE, SPRUCE_FENCE_GATE, MANGROVE_FENCE_GATE, CHERRY_FENCE_GATE, BAMBOO_FENCE_GATE, PALE_OAK_FENCE_GATE, CRIMSON_FENCE_GATE, WARPED_FENCE_GATE -> true;
-            default -> false;
-        };
-    }
-
     private boolean giveOrDropHeartItem(Player player) {
         ItemStack heartItem = heartItemUtil.createHeartItem(1);
+        plugin.getStatsManager().recordItemsMinted(1);
         HashMap<Integer, ItemStack> leftover = player.getInventory().addItem(heartItem);
         if (!leftover.isEmpty()) {
             player.getWorld().dropItemNaturally(player.getLocation(), leftover.values().iterator().next());
@@ -421,25 +420,17 @@ public class PlayerListener implements Listener {
 
         Bukkit.getScheduler().runTask(plugin, () -> {
             player.ban(finalBanMessage, (Date) null, banSource, true);
-            plugin.getDatabaseManager().addPluginBan(playerUUID, finalBanMessage);
             plugin.getLogger().info("Banned player " + playerName + " (" + playerUUID + ") for running out of hearts.");
 
-            int banCount = plugin.getDatabaseManager().getTotalHeartBans();
-            Component broadcastMessage = player.displayName()
-                    .append(Component.text(" ran out of hearts and was banned! ", NamedTextColor.GRAY))
-                    .append(Component.text("(", NamedTextColor.DARK_GRAY))
-                    .append(Component.text("Total bans: ", NamedTextColor.GRAY))
-                    .append(Component.text(banCount, NamedTextColor.RED, TextDecoration.BOLD))
-                    .append(Component.text(")", NamedTextColor.DARK_GRAY));
-            Bukkit.broadcast(broadcastMessage);
-
-            if (plugin.isDiscordRelayAPIReady()) {
-                com.jellypudding.discordRelay.DiscordRelayAPI.sendFormattedMessage(
-                    "Lifesteal Ban",
-                    playerName + " ran out of hearts and was banned! (Total bans: " + banCount + ")",
-                    Color.RED
-                );
-            }
+            Component displayName = player.displayName();
+            banPipeline.recordBan(playerUUID, playerName, finalBanMessage, false, displayName,
+                    banCount -> displayName
+                            .append(Component.text(" ran out of hearts and was banned! ", NamedTextColor.GRAY))
+                            .append(Component.text("(", NamedTextColor.DARK_GRAY))
+                            .append(Component.text("Total bans: ", NamedTextColor.GRAY))
+                            .append(Component.text(banCount, NamedTextColor.RED, TextDecoration.BOLD))
+                            .append(Component.text(")", NamedTextColor.DARK_GRAY)),
+                    banCount -> playerName + " ran out of hearts and was banned! (Total bans: " + banCount + ")");
         });
     }
 
@@ -457,26 +448,25 @@ public class PlayerListener implements Listener {
 
         Bukkit.getScheduler().runTask(plugin, () -> {
             player.ban(finalBanMessage, (Date) null, banSource);
-            plugin.getDatabaseManager().addPluginBan(playerUUID, finalBanMessage);
             plugin.getLogger().info("Banned offline player " + playerName + " (" + playerUUID + ") for running out of hearts.");
 
-            int banCount = plugin.getDatabaseManager().getTotalHeartBans();
             Component playerDisplayName = PlayerNameUtil.getFormattedPlayerName(plugin.getChromaTagAPI(), playerUUID, playerName);
-            Component broadcastMessage = playerDisplayName
-                    .append(Component.text(" ran out of hearts and was banned (whilst offline)! ", NamedTextColor.GRAY))
-                    .append(Component.text("(", NamedTextColor.DARK_GRAY))
-                    .append(Component.text("Total bans: ", NamedTextColor.GRAY))
-                    .append(Component.text(banCount, NamedTextColor.RED, TextDecoration.BOLD))
-                    .append(Component.text(")", NamedTextColor.DARK_GRAY));
-            Bukkit.broadcast(broadcastMessage);
-
-            if (plugin.isDiscordRelayAPIReady()) {
-                com.jellypudding.discordRelay.DiscordRelayAPI.sendFormattedMessage(
-                    "Lifesteal Ban",
-                    playerName + " ran out of hearts and was banned (whilst offline)! (Total bans: " + banCount + ")",
-                    Color.RED
-                );
-            }
+            banPipeline.recordBan(playerUUID, playerName, finalBanMessage, true, playerDisplayName,
+                    banCount -> playerDisplayName
+                            .append(Component.text(" ran out of hearts and was banned (whilst offline)! ", NamedTextColor.GRAY))
+                            .append(Component.text("(", NamedTextColor.DARK_GRAY))
+                            .append(Component.text("Total bans: ", NamedTextColor.GRAY))
+                            .append(Component.text(banCount, NamedTextColor.RED, TextDecoration.BOLD))
+                            .append(Component.text(")", NamedTextColor.DARK_GRAY)),
+                    banCount -> playerName + " ran out of hearts and was banned (whilst offline)! (Total bans: " + banCount + ")");
         });
     }
+
+    private static Component summariseHeartSteals(List<Component> victims, int killerHearts) {
+        return Component.text("You stole " + victims.size() + " hearts from ", NamedTextColor.GREEN)
+                .append(BroadcastAggregator.joinSubjects(victims, NamedTextColor.GREEN))
+                .append(Component.text("! You now have ", NamedTextColor.GREEN))
+                .append(Component.text(killerHearts, NamedTextColor.RED))
+                .append(Component.text((killerHearts == 1 ? " heart." : " hearts."), NamedTextColor.GREEN));
+    }
 }
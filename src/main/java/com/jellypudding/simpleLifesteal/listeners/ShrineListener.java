@@ -1,37 +1,68 @@
 package com.jellypudding.simpleLifesteal.listeners;
 
 import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+import com.jellypudding.simpleLifesteal.managers.LoadGovernor;
 import com.jellypudding.simpleLifesteal.shrine.ShrineData;
+import com.jellypudding.simpleLifesteal.shrine.ShrineEffects;
 import com.jellypudding.simpleLifesteal.shrine.ShrineManager;
+import com.jellypudding.simpleLifesteal.utils.ChunkPlayerIndex;
 import net.kyori.adventure.bossbar.BossBar;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.Particle;
 import org.bukkit.Sound;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.entity.EntityDismountEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.vehicle.VehicleMoveEvent;
 import org.bukkit.scheduler.BukkitTask;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public class ShrineListener implements Listener {
 
     private final SimpleLifesteal plugin;
     private final ShrineManager shrineManager;
 
-    private final Map<UUID, BossBar> activeBossBars = new HashMap<>();
-    private final Set<UUID> nearbyPlayers = new HashSet<>();
+    // One boss bar shared by everyone near the shrine; its title only changes when what it shows does.
+    private BossBar shrineBar;
+    private ShrineData barShrine;
+    private Component barTitlePrefix;
+    private long shownSeconds = -1;
+    private int shownUnbans = -1;
+    // Particles and sounds for the same shrine, sent to the boss bar's viewers.
+    private ShrineEffects effects;
+
+    // Players within the proximity radius as of the last check, who are the boss bar's viewers.
+    // The two sets are swapped each check instead of allocating new ones.
+    private Set<UUID> nearbyPlayers = new HashSet<>();
+    private Set<UUID> nowNearby = new HashSet<>();
+
+    private final ChunkPlayerIndex playerIndex = new ChunkPlayerIndex();
+    private final double proximityRadius;
+    private final Consumer<Player> nearbyAction = this::onNearby;
+
+    // Cosmetic tasks run less often (or not at all) while the server is lagging.
+    private final LoadGovernor loadGovernor;
+    private long proximityRuns = 0;
+    private long soundRuns = 0;
+    private long particleRuns = 0;
 
     private BukkitTask proximityTask;
     private BukkitTask soundTask;
@@ -48,6 +79,12 @@ public class ShrineListener implements Listener {
     public ShrineListener(SimpleLifesteal plugin, ShrineManager shrineManager) {
         this.plugin = plugin;
         this.shrineManager = shrineManager;
+        this.proximityRadius = plugin.getConfig().getDouble("shrine.proximity-radius", 30);
+        this.loadGovernor = plugin.getLoadGovernor();
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            playerIndex.update(player, player.getLocation());
+        }
 
         shrineManager.setOnShrineRemoved(this::clearAllBossBars);
 
@@ -57,6 +94,8 @@ public class ShrineListener implements Listener {
     }
 
     private void checkProximity() {
+        if (!loadGovernor.getLevel().allowsProximity(proximityRuns++)) return;
+
         ShrineData shrine = shrineManager.getActiveShrine();
 
         if (shrine == null) {
@@ -64,111 +103,114 @@ public class ShrineListener implements Listener {
             return;
         }
 
-        double radius = plugin.getConfig().getDouble("shrine.proximity-radius", 30);
-        Set<UUID> nowNearby = new HashSet<>();
-
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            if (shrine.isNearby(player.getLocation(), radius)) {
-                nowNearby.add(player.getUniqueId());
-                updateBossBar(player, shrine);
-            }
+        if (shrine != barShrine) {
+            clearAllBossBars();
+            createBossBar(shrine);
         }
+        updateBossBar(shrine);
+
+        // Only players in chunks overlapping the radius are looked at.
+        Location center = shrine.getCenter();
+        if (center.getWorld() == null) return;
+        nowNearby.clear();
+        playerIndex.query(center.getWorld(), center.getX(), center.getZ(), proximityRadius, nearbyAction);
 
-        Set<UUID> leftArea = new HashSet<>(nearbyPlayers);
-        leftArea.removeAll(nowNearby);
-        for (UUID uuid : leftArea) {
-            removeBossBar(uuid);
+        for (UUID uuid : nearbyPlayers) {
+            if (!nowNearby.contains(uuid)) {
+                hideBossBar(uuid);
+            }
         }
 
-        nearbyPlayers.clear();
-        nearbyPlayers.addAll(nowNearby);
+        Set<UUID> previous = nearbyPlayers;
+        nearbyPlayers = nowNearby;
+        nowNearby = previous;
     }
 
-    private void updateBossBar(Player player, ShrineData shrine) {
-        long secs   = shrine.getRemainingSeconds();
-        long mins   = secs / 60;
-        long remSec = secs % 60;
-        String timeStr = mins + "m " + String.format("%02d", remSec) + "s";
+    private void onNearby(Player player) {
+        nowNearby.add(player.getUniqueId());
+        if (!nearbyPlayers.contains(player.getUniqueId())) {
+            player.showBossBar(shrineBar);
+        }
+    }
 
-        Component title = Component.text()
+    private void createBossBar(ShrineData shrine) {
+        // The cost never changes during a shrine's life, so this part is built once.
+        barTitlePrefix = Component.text()
                 .append(Component.text("Blood Shrine", NamedTextColor.DARK_RED, TextDecoration.BOLD))
                 .append(Component.text(" | ", NamedTextColor.DARK_GRAY))
                 .append(Component.text("Cost: ", NamedTextColor.GRAY))
                 .append(Component.text(shrine.getHeartsCost() + " hearts", NamedTextColor.RED, TextDecoration.BOLD))
                 .append(Component.text(" | ", NamedTextColor.DARK_GRAY))
                 .append(Component.text("Time: ", NamedTextColor.GRAY))
-                .append(Component.text(timeStr, NamedTextColor.YELLOW))
-                .append(Component.text(" | ", NamedTextColor.DARK_GRAY))
-                .append(Component.text("Unbans left: ", NamedTextColor.GRAY))
-                .append(Component.text(shrine.getRemainingUnbans(), NamedTextColor.GREEN, TextDecoration.BOLD))
                 .build();
+        shownSeconds = -1;
+        shownUnbans = -1;
+        barShrine = shrine;
+        effects = new ShrineEffects(shrine.getCenter());
+        shrineBar = BossBar.bossBar(Component.empty(), shrine.getTimeProgress(), BossBar.Color.RED, BossBar.Overlay.PROGRESS);
+    }
 
-        float progress = shrine.getTimeProgress();
-
-        BossBar bar = activeBossBars.get(player.getUniqueId());
-        if (bar == null) {
-            bar = BossBar.bossBar(title, progress, BossBar.Color.RED, BossBar.Overlay.PROGRESS);
-            activeBossBars.put(player.getUniqueId(), bar);
-            player.showBossBar(bar);
-        } else {
-            bar.name(title);
-            bar.progress(Math.max(0f, Math.min(1f, progress)));
+    private void updateBossBar(ShrineData shrine) {
+        long secs = shrine.getRemainingSeconds();
+        int unbans = shrine.getRemainingUnbans();
+        if (secs != shownSeconds || unbans != shownUnbans) {
+            shownSeconds = secs;
+            shownUnbans = unbans;
+            long remSec = secs % 60;
+            String timeStr = (secs / 60) + "m " + (remSec < 10 ? "0" : "") + remSec + "s";
+            shrineBar.name(Component.text()
+                    .append(barTitlePrefix)
+                    .append(Component.text(timeStr, NamedTextColor.YELLOW))
+                    .append(Component.text(" | ", NamedTextColor.DARK_GRAY))
+                    .append(Component.text("Unbans left: ", NamedTextColor.GRAY))
+                    .append(Component.text(unbans, NamedTextColor.GREEN, TextDecoration.BOLD))
+                    .build());
         }
+        // BossBar ignores a progress equal to its current one.
+        shrineBar.progress(shrine.getTimeProgress());
     }
 
-    private void removeBossBar(UUID uuid) {
-        BossBar bar = activeBossBars.remove(uuid);
-        if (bar == null) return;
+    private void hideBossBar(UUID uuid) {
+        if (shrineBar == null) return;
         Player player = Bukkit.getPlayer(uuid);
         if (player != null) {
-            player.hideBossBar(bar);
+            player.hideBossBar(shrineBar);
         }
     }
 
     public void clearAllBossBars() {
-        for (UUID uuid : new HashSet<>(activeBossBars.keySet())) {
-            removeBossBar(uuid);
+        for (UUID uuid : nearbyPlayers) {
+            hideBossBar(uuid);
         }
         nearbyPlayers.clear();
+        shrineBar = null;
+        barShrine = null;
+        effects = null;
+        barTitlePrefix = null;
     }
 
     private void playAmbientSounds() {
-        ShrineData shrine = shrineManager.getActiveShrine();
-        if (shrine == null || nearbyPlayers.isEmpty()) return;
-
-        double radius = plugin.getConfig().getDouble("shrine.proximity-radius", 30);
-        Location shrineCenter = shrine.getCenter();
+        // Viewers are the players found near the shrine by the last proximity check.
+        if (effects == null || nearbyPlayers.isEmpty()) return;
+        if (!loadGovernor.getLevel().allowsSound(soundRuns++)) return;
 
         Sound chosen = AMBIENT_SOUNDS[(int) (Math.random() * AMBIENT_SOUNDS.length)];
-
-        for (UUID uuid : nearbyPlayers) {
-            Player player = Bukkit.getPlayer(uuid);
-            if (player == null) continue;
-            if (!shrine.isNearby(player.getLocation(), radius)) continue;
-            player.playSound(shrineCenter, chosen, 0.6f, 0.85f);
-        }
+        effects.playSound(nearbyPlayers, chosen, 0.6f, 0.85f);
     }
 
     private void spawnShrineParticles() {
-        ShrineData shrine = shrineManager.getActiveShrine();
-        if (shrine == null) return;
-
-        Location base = shrine.getCenter();
-        if (base.getWorld() == null) return;
-
-        base.getWorld().spawnParticle(Particle.SOUL,        base.clone().add(0, 2, 0),    3, 0.4, 0.5, 0.4, 0.02);
-        base.getWorld().spawnParticle(Particle.ASH,         base.clone().add(0, 1, 0),    5, 1.0, 0.5, 1.0, 0.05);
-        base.getWorld().spawnParticle(Particle.LARGE_SMOKE, base.clone().add(-1, 4, -1),  1, 0.1, 0.1, 0.1, 0.01);
-        base.getWorld().spawnParticle(Particle.LARGE_SMOKE, base.clone().add( 1, 4, -1),  1, 0.1, 0.1, 0.1, 0.01);
-        base.getWorld().spawnParticle(Particle.LARGE_SMOKE, base.clone().add(-1, 4,  1),  1, 0.1, 0.1, 0.1, 0.01);
-        base.getWorld().spawnParticle(Particle.LARGE_SMOKE, base.clone().add( 1, 4,  1),  1, 0.1, 0.1, 0.1, 0.01);
+        if (effects == null || nearbyPlayers.isEmpty()) return;
+        if (!loadGovernor.getLevel().allowsParticles(particleRuns++)) return;
+        effects.spawnParticles(nearbyPlayers);
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBlockBreak(BlockBreakEvent event) {
         ShrineData shrine = shrineManager.getActiveShrine();
         if (shrine == null) return;
-        if (!shrine.removeShrineBlock(event.getBlock().getLocation())) return;
+        // Reads the block's coordinates directly; blocks away from the shrine fail the bounding box check.
+        Block block = event.getBlock();
+        if (!shrine.removeShrineBlock(block.getWorld(), block.getX(), block.getY(), block.getZ())) return;
 
         Bukkit.getScheduler().runTask(plugin, () -> {
             ShrineData s = shrineManager.getActiveShrine();
@@ -181,8 +223,66 @@ public class ShrineListener implements Listener {
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent event) {
         UUID uuid = event.getPlayer().getUniqueId();
-        removeBossBar(uuid);
-        nearbyPlayers.remove(uuid);
+        if (nearbyPlayers.remove(uuid)) {
+            event.getPlayer().hideBossBar(shrineBar);
+        }
+        playerIndex.remove(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        playerIndex.update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        // Most moves stay within a chunk; those need no index update.
+        if (!changedChunk(event.getFrom(), event.getTo())) return;
+        playerIndex.update(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        if (!changedChunk(event.getFrom(), event.getTo())) return;
+        playerIndex.update(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        playerIndex.update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        playerIndex.update(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onVehicleMove(VehicleMoveEvent event) {
+        // Riders get no PlayerMoveEvent of their own, so they are moved along with their vehicle.
+        if (!changedChunk(event.getFrom(), event.getTo())) return;
+        for (Entity passenger : event.getVehicle().getPassengers()) {
+            if (passenger instanceof Player player) {
+                playerIndex.update(player, event.getTo());
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityDismount(EntityDismountEvent event) {
+        if (!(event.getEntity() instanceof Player player)) return;
+        // The player is only placed beside the vehicle after the event, so index them next tick.
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (player.isOnline()) {
+                playerIndex.update(player, player.getLocation());
+            }
+        });
+    }
+
+    private static boolean changedChunk(Location from, Location to) {
+        return (from.getBlockX() >> 4) != (to.getBlockX() >> 4)
+                || (from.getBlockZ() >> 4) != (to.getBlockZ() >> 4)
+                || from.getWorld() != to.getWorld();
     }
 
     public void shutdown() {
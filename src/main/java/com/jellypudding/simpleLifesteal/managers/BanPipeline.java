@@ -0,0 +1,92 @@
+package com.jellypudding.simpleLifesteal.managers;
+
+import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+import com.jellypudding.simpleLifesteal.database.DatabaseManager;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.Bukkit;
+
+import java.awt.Color;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+
+/**
+ * Runs everything that follows an in-game ban without holding up the tick. The ban record is
+ * written and the ban total counted on the database writer thread, the broadcast goes out on the
+ * main thread, and the Discord message is handed to the {@link DiscordNotifier}. Each stage is
+ * isolated, so a failed broadcast or Discord message never affects the ban record.
+ */
+public class BanPipeline {
+
+    private final SimpleLifesteal plugin;
+
+    public BanPipeline(SimpleLifesteal plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Records and announces a ban. The caller must already have banned (and kicked) the player
+     * on the main thread.
+     *
+     * @param offline Whether the player was banned while offline. Online and offline bans are
+     *                announced and digested separately, so each summary keeps its wording.
+     * @param displayName The player's name as listed when several bans are announced together.
+     * @param broadcast Builds the chat broadcast from the new ban total.
+     * @param discordMessage Builds the Discord message from the new ban total.
+     */
+    public void recordBan(UUID uuid, String playerName, String reason, boolean offline, Component displayName,
+                          IntFunction<Component> broadcast, IntFunction<String> discordMessage) {
+        DatabaseManager databaseManager = plugin.getDatabaseManager();
+        // Re-banning a banned player only updates their record, which is not a new ban.
+        if (!databaseManager.isPlayerBannedByPlugin(uuid)) {
+            plugin.getStatsManager().recordBan();
+        }
+        databaseManager.queuePluginBan(uuid, reason)
+                .exceptionally(error -> {
+                    // The writer already retried this write once; try one last time directly.
+                    plugin.getLogger().log(Level.WARNING, "Queued ban record for " + playerName + " (" + uuid + ") failed. Retrying.", error);
+                    databaseManager.addPluginBan(uuid, reason);
+                    return null;
+                })
+                .thenApply(ignored -> databaseManager.getTotalHeartBans())
+                .thenAccept(banCount -> {
+                    Bukkit.getScheduler().runTask(plugin, () -> {
+                        try {
+                            plugin.getBroadcastAggregator().broadcast(offline ? "ban-offline" : "ban",
+                                    broadcast.apply(banCount), displayName, banCount,
+                                    offline ? BanPipeline::summariseOfflineBans : BanPipeline::summariseBans);
+                        } catch (Exception e) {
+                            plugin.getLogger().log(Level.WARNING, "Could not broadcast ban of " + playerName, e);
+                        }
+                    });
+
+                    // Queued to the notifier thread, which batches and rate-limits Discord messages.
+                    plugin.getDiscordNotifier().post(offline ? "Lifesteal Ban (Offline)" : "Lifesteal Ban",
+                            discordMessage.apply(banCount), Color.RED);
+                })
+                .exceptionally(error -> {
+                    plugin.getLogger().log(Level.WARNING, "Could not announce ban of " + playerName + " (" + uuid + ")", error);
+                    return null;
+                });
+    }
+
+    private static Component summariseBans(List<Component> players, int banCount) {
+        return summarise(players, " ran out of hearts and were banned! ", banCount);
+    }
+
+    private static Component summariseOfflineBans(List<Component> players, int banCount) {
+        return summarise(players, " ran out of hearts and were banned (whilst offline)! ", banCount);
+    }
+
+    private static Component summarise(List<Component> players, String action, int banCount) {
+        return BroadcastAggregator.joinSubjects(players, NamedTextColor.GRAY)
+                .append(Component.text(action, NamedTextColor.GRAY))
+                .append(Component.text("(", NamedTextColor.DARK_GRAY))
+                .append(Component.text("Total bans: ", NamedTextColor.GRAY))
+                .append(Component.text(banCount, NamedTextColor.RED, TextDecoration.BOLD))
+                .append(Component.text(")", NamedTextColor.DARK_GRAY));
+    }
+}
@@ -0,0 +1,141 @@
+package com.jellypudding.simpleLifesteal.managers;
+
+import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.JoinConfiguration;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Merges lifesteal messages of the same type that are sent within a short window. When a trap
+ * kills several players at once, everyone gets one summary line instead of one line per death.
+ * A message that has nothing to merge with is sent unchanged. Must be used from the main thread.
+ */
+public class BroadcastAggregator {
+
+    /**
+     * Builds the merged message from the subject of each message (usually a player name) and the
+     * value attached to the most recent message (e.g. the ban total).
+     */
+    public interface Summariser {
+        Component summarise(List<Component> subjects, int latestValue);
+    }
+
+    private static final int MAX_SUBJECTS_SHOWN = 10;
+
+    private static final class Pending {
+        private final UUID recipient;
+        private final Summariser summariser;
+        private final List<Component> subjects = new ArrayList<>();
+        private Component single;
+        private int latestValue;
+
+        private Pending(UUID recipient, Summariser summariser) {
+            this.recipient = recipient;
+            this.summariser = summariser;
+        }
+    }
+
+    private final SimpleLifesteal plugin;
+    private final long windowTicks;
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    private BukkitTask flushTask;
+
+    public BroadcastAggregator(SimpleLifesteal plugin) {
+        this.plugin = plugin;
+        this.windowTicks = Math.max(0L, plugin.getConfig().getLong("broadcasts.coalesce-window-ticks", 5));
+    }
+
+    /**
+     * Broadcasts a message to the whole server, merged with other messages of the same type.
+     *
+     * @param type Messages with the same type are merged.
+     * @param message Sent as is if no other message of this type arrives within the window.
+     * @param subject What this message is about, listed in the summary.
+     * @param value Passed to the summariser if this is the latest message of its type.
+     */
+    public void broadcast(String type, Component message, Component subject, int value, Summariser summariser) {
+        submit(type, null, message, subject, value, summariser);
+    }
+
+    /**
+     * Sends a message to one player, merged with other messages of the same type to that player.
+     */
+    public void send(Player player, String type, Component message, Component subject, int value, Summariser summariser) {
+        submit(type + ':' + player.getUniqueId(), player.getUniqueId(), message, subject, value, summariser);
+    }
+
+    private void submit(String key, UUID recipient, Component message, Component subject, int value, Summariser summariser) {
+        if (windowTicks == 0) {
+            deliver(recipient, message);
+            return;
+        }
+
+        Pending entry = pending.computeIfAbsent(key, k -> new Pending(recipient, summariser));
+        entry.single = message;
+        entry.latestValue = value;
+        entry.subjects.add(subject);
+
+        if (flushTask == null) {
+            flushTask = Bukkit.getScheduler().runTaskLater(plugin, this::flush, windowTicks);
+        }
+    }
+
+    /**
+     * Sends everything that is waiting. Called when the window ends and on shutdown.
+     */
+    public void flush() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        if (pending.isEmpty()) return;
+
+        List<Pending> entries = new ArrayList<>(pending.values());
+        pending.clear();
+        for (Pending entry : entries) {
+            Component message;
+            if (entry.subjects.size() == 1) {
+                message = entry.single;
+            } else {
+                message = entry.summariser.summarise(entry.subjects, entry.latestValue);
+            }
+            try {
+                deliver(entry.recipient, message);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Could not send lifesteal message: " + e.getMessage());
+            }
+        }
+    }
+
+    private void deliver(UUID recipient, Component message) {
+        if (recipient == null) {
+            Bukkit.broadcast(message);
+            return;
+        }
+        Player player = Bukkit.getPlayer(recipient);
+        if (player != null) {
+            player.sendMessage(message);
+        }
+    }
+
+    /**
+     * Joins subjects into a comma separated list, cut short after a few names.
+     */
+    public static Component joinSubjects(List<Component> subjects, NamedTextColor separatorColour) {
+        List<Component> shown = subjects.size() > MAX_SUBJECTS_SHOWN ? subjects.subList(0, MAX_SUBJECTS_SHOWN) : subjects;
+        Component joined = Component.join(JoinConfiguration.separator(Component.text(", ", separatorColour)), shown);
+        if (shown.size() < subjects.size()) {
+            joined = joined.append(Component.text(" and " + (subjects.size() - shown.size()) + " more", separatorColour));
+        }
+        return joined;
+    }
+}
@@ -0,0 +1,218 @@
+package com.jellypudding.simpleLifesteal.managers;
+
+import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends Discord messages from a background thread. Messages are queued (never blocking the
+ * caller), messages with the same title that arrive within a short window are merged into one
+ * digest, and sends are spaced out to respect a rate limit. If the queue is full, new messages
+ * are dropped and counted.
+ */
+public class DiscordNotifier {
+
+    /**
+     * Where messages end up. {@link #discordRelay()} sends them through DiscordRelay.
+     */
+    public interface Sink {
+        void send(String title, String message, Color colour) throws Exception;
+
+        static Sink discordRelay() {
+            return com.jellypudding.discordRelay.DiscordRelayAPI::sendFormattedMessage;
+        }
+    }
+
+    private static final long IDLE_POLL_MILLIS = 250;
+    // Discord rejects embed descriptions longer than this.
+    private static final int MAX_DIGEST_LENGTH = 4000;
+
+    private static final class Notification {
+        private final String title;
+        private final String message;
+        private final Color colour;
+
+        private Notification(String title, String message, Color colour) {
+            this.title = title;
+            this.message = message;
+            this.colour = colour;
+        }
+    }
+
+    private final Logger logger;
+    private final Sink sink;
+    private final BlockingQueue<Notification> queue;
+    private final long digestWindowMillis;
+    private final long minIntervalMillis;
+
+    private Thread thread;
+    private volatile boolean running = false;
+    private volatile boolean dropWarned = false;
+    private long lastSendMillis = 0;
+
+    private final AtomicLong queuedMessages = new AtomicLong();
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final AtomicLong failedMessages = new AtomicLong();
+
+    /**
+     * @param sink Where to send messages, or null to discard them (Discord integration disabled).
+     */
+    public DiscordNotifier(SimpleLifesteal plugin, Sink sink) {
+        this(plugin.getLogger(), sink,
+                plugin.getConfig().getInt("discord.queue-capacity", 100),
+                plugin.getConfig().getLong("discord.digest-window-ms", 2000),
+                plugin.getConfig().getLong("discord.min-interval-ms", 2000));
+    }
+
+    DiscordNotifier(Logger logger, Sink sink, int queueCapacity, long digestWindowMillis, long minIntervalMillis) {
+        this.logger = logger;
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.digestWindowMillis = Math.max(0L, digestWindowMillis);
+        this.minIntervalMillis = Math.max(0L, minIntervalMillis);
+
+        if (sink != null) {
+            running = true;
+            thread = new Thread(this::run, "SimpleLifesteal-DiscordNotifier");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return sink != null;
+    }
+
+    /**
+     * Queues a message. Safe to call from any thread; never blocks.
+     */
+    public void post(String title, String message, Color colour) {
+        if (!running) return;
+
+        if (queue.offer(new Notification(title, message, colour))) {
+            queuedMessages.incrementAndGet();
+            dropWarned = false;
+        } else {
+            droppedMessages.incrementAndGet();
+            if (!dropWarned) {
+                dropWarned = true;
+                logger.warning("Discord notification queue is full. Dropping messages until it drains.");
+            }
+        }
+    }
+
+    /**
+     * Stops the notifier, giving it a few seconds to send what is already queued.
+     */
+    public void shutdown() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    private void run() {
+        List<Notification> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Notification first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // Wait out the window so a burst turns into one digest per title.
+                long deadline = System.currentTimeMillis() + digestWindowMillis;
+                while (running) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) break;
+                    Notification next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next != null) batch.add(next);
+                }
+                queue.drainTo(batch);
+
+                Map<String, List<Notification>> byTitle = new LinkedHashMap<>();
+                for (Notification notification : batch) {
+                    byTitle.computeIfAbsent(notification.title, t -> new ArrayList<>()).add(notification);
+                }
+                for (List<Notification> group : byTitle.values()) {
+                    send(group);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown is signalled through the running flag.
+            } catch (Throwable t) {
+                logger.log(Level.SEVERE, "Unexpected error in Discord notifier thread", t);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<Notification> group) throws InterruptedException {
+        Notification first = group.get(0);
+        String title = first.title;
+        String message = first.message;
+        if (group.size() > 1) {
+            title = first.title + " (" + group.size() + ")";
+            StringBuilder digest = new StringBuilder();
+            for (int i = 0; i < group.size(); i++) {
+                String line = "• " + group.get(i).message;
+                if (digest.length() + line.length() + 1 > MAX_DIGEST_LENGTH) {
+                    digest.append("…and ").append(group.size() - i).append(" more.");
+                    break;
+                }
+                digest.append(line).append('\n');
+            }
+            message = digest.toString().trim();
+        }
+
+        if (running) {
+            long wait = lastSendMillis + minIntervalMillis - System.currentTimeMillis();
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+        }
+        try {
+            sink.send(title, message, first.colour);
+            sentMessages.incrementAndGet();
+        } catch (Exception e) {
+            failedMessages.incrementAndGet();
+            logger.log(Level.WARNING, "Failed to send Discord notification: " + title, e);
+        }
+        lastSendMillis = System.currentTimeMillis();
+    }
+
+    public long getQueuedMessages() {
+        return queuedMessages.get();
+    }
+
+    public long getSentMessages() {
+        return sentMessages.get();
+    }
+
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    public long getFailedMessages() {
+        return failedMessages.get();
+    }
+
+    public int getPendingMessages() {
+        return queue.size();
+    }
+}
@@ -8,9 +8,7 @@ import net.kyori.adventure.title.Title;
 import org.bukkit.entity.Player;
 
 import java.time.Duration;
-import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class GracePeriodManager {
 
@@ -19,8 +17,6 @@ public class GracePeriodManager {
     private final boolean enabled;
     private final long gracePeriodMillis;
 
-    private final Map<UUID, Long> activeGracePeriodPlayers = new ConcurrentHashMap<>();
-
     public GracePeriodManager(SimpleLifesteal plugin, com.jellypudding.offlineStats.api.OfflineStatsAPI offlineStatsAPI) {
         this.plugin = plugin;
         this.offlineStatsAPI = offlineStatsAPI;
@@ -50,8 +46,16 @@ public class GracePeriodManager {
         }
     }
 
+    /**
+     * Whether new players can be given a grace period at all.
+     */
+    public boolean isEnabled() {
+        return enabled && offlineStatsAPI != null;
+    }
+
     public boolean isPlayerInGracePeriod(UUID playerUuid) {
-        return activeGracePeriodPlayers.containsKey(playerUuid);
+        PlayerState state = plugin.getPlayerDataManager().getCachedState(playerUuid);
+        return state != null && state.isInGracePeriod();
     }
 
     public boolean checkGracePeriodEligibility(UUID playerUuid) {
@@ -68,33 +72,25 @@ public class GracePeriodManager {
         return remainingMs > 0;
     }
 
-    public boolean handlePlayerJoin(Player player) {
-        UUID uuid = player.getUniqueId();
-
-        int existingHearts = plugin.getDatabaseManager().getPlayerHearts(uuid);
-        if (existingHearts == -1) {
-            long remainingMs = checkPlaytimeAndGetRemaining(uuid);
-            if (remainingMs > 0) {
-                activeGracePeriodPlayers.put(uuid, System.currentTimeMillis() + remainingMs);
-                showGracePeriodTitle(player);
-                return true;
-            }
-        }
-        return false;
-    }
-
-    public boolean handlePlayerQuit(UUID playerUuid) {
-        if (activeGracePeriodPlayers.containsKey(playerUuid)) {
-            activeGracePeriodPlayers.remove(playerUuid);
-            return true;
+    /**
+     * Called when a player with no Lifesteal record joins. Starts their grace period
+     * if they still have playtime left in it.
+     *
+     * @param player The joining player.
+     * @param state The player's freshly created (not yet persisted) state.
+     * @return true if the player is now in their grace period.
+     */
+    public boolean startGracePeriod(Player player, PlayerState state) {
+        long remainingMs = checkPlaytimeAndGetRemaining(player.getUniqueId());
+        if (remainingMs <= 0) {
+            return false;
         }
-        return false;
+        state.setGraceExpiryMillis(System.currentTimeMillis() + remainingMs);
+        showGracePeriodTitle(player, state.getGraceExpiryMillis());
+        return true;
     }
 
-    private void showGracePeriodTitle(Player player) {
-        Long expiryTime = activeGracePeriodPlayers.get(player.getUniqueId());
-        if (expiryTime == null) return;
-
+    private void showGracePeriodTitle(Player player, long expiryTime) {
         long remainingMs = expiryTime - System.currentTimeMillis();
         int remainingMinutes = (int) (remainingMs / 60000);
 
@@ -132,29 +128,22 @@ public class GracePeriodManager {
         plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
             long currentTime = System.currentTimeMillis();
 
-            for (Map.Entry<UUID, Long> entry : activeGracePeriodPlayers.entrySet()) {
-                UUID uuid = entry.getKey();
-                long expiryTime = entry.getValue();
-
-                if (currentTime >= expiryTime) {
-                    Player player = plugin.getServer().getPlayer(uuid);
-                    if (player != null && player.isOnline()) {
-                        plugin.getLogger().info("Grace period ended for " + player.getName() + ". Adding to Lifesteal database.");
-
-                        plugin.getPlayerDataManager().loadPlayerData(player, loadedHearts -> {
-                            if (!player.isOnline()) return;
-
-                            Title endTitle = Title.title(
-                                Component.text("Grace Period Ended", NamedTextColor.RED, TextDecoration.BOLD),
-                                Component.text("Lifesteal is now active", NamedTextColor.YELLOW),
-                                Title.Times.times(Duration.ofMillis(500), Duration.ofSeconds(4), Duration.ofMillis(500))
-                            );
-                            player.showTitle(endTitle);
-                            player.sendMessage(Component.text("Your grace period has ended. Lifesteal is now active.", NamedTextColor.RED));
-                        });
-                    }
-                    activeGracePeriodPlayers.remove(uuid);
+            for (Player player : plugin.getServer().getOnlinePlayers()) {
+                PlayerState state = plugin.getPlayerDataManager().getCachedState(player.getUniqueId());
+                if (state == null || !state.isInGracePeriod() || currentTime < state.getGraceExpiryMillis()) {
+                    continue;
                 }
+
+                plugin.getLogger().info("Grace period ended for " + player.getName() + ". Adding to Lifesteal database.");
+                plugin.getPlayerDataManager().endGracePeriod(player.getUniqueId());
+
+                Title endTitle = Title.title(
+                    Component.text("Grace Period Ended", NamedTextColor.RED, TextDecoration.BOLD),
+                    Component.text("Lifesteal is now active", NamedTextColor.YELLOW),
+                    Title.Times.times(Duration.ofMillis(500), Duration.ofSeconds(4), Duration.ofMillis(500))
+                );
+                player.showTitle(endTitle);
+                player.sendMessage(Component.text("Your grace period has ended. Lifesteal is now active.", NamedTextColor.RED));
             }
         }, 600L, 600L); // Check every 30 seconds (600 ticks)
     }
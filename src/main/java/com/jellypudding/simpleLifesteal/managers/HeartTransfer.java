@@ -0,0 +1,52 @@
+package com.jellypudding.simpleLifesteal.managers;
+
+/**
+ * Outcome of {@link PlayerDataManager#transferHeart}.
+ */
+public class HeartTransfer {
+
+    private final int victimHearts;
+    private final int killerHearts;
+    private final boolean killerFull;
+    // The states changed by the transfer, for writing them back. The killer's is null if they gained nothing.
+    private final PlayerState victimState;
+    private final PlayerState killerState;
+
+    HeartTransfer(int victimHearts, int killerHearts, boolean killerFull,
+                  PlayerState victimState, PlayerState killerState) {
+        this.victimHearts = victimHearts;
+        this.killerHearts = killerHearts;
+        this.killerFull = killerFull;
+        this.victimState = victimState;
+        this.killerState = killerState;
+    }
+
+    /**
+     * The victim's hearts after losing one.
+     */
+    public int getVictimHearts() {
+        return victimHearts;
+    }
+
+    /**
+     * The killer's hearts after the transfer, or -1 if there was no killer.
+     */
+    public int getKillerHearts() {
+        return killerHearts;
+    }
+
+    /**
+     * True if the killer was already at their heart limit and should receive a heart item instead.
+     */
+    public boolean isKillerFull() {
+        return killerFull;
+    }
+
+    PlayerState getVictimState() {
+        return victimState;
+    }
+
+    PlayerState getKillerState() {
+        return killerState;
+    }
+}
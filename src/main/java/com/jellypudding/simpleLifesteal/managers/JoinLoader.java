@@ -0,0 +1,115 @@
+package com.jellypudding.simpleLifesteal.managers;
+
+import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+import com.jellypudding.simpleLifesteal.database.DatabaseManager;
+import org.bukkit.Bukkit;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Collects player loads requested within a short window and resolves them together, so a burst
+ * of joins (e.g. everyone reconnecting after a restart) costs one {@code IN (...)} query instead of
+ * a query per player. Rows for new players are not created here: loads also run for logins that
+ * are later denied, so the row is only written once the join succeeds, and the writer thread
+ * commits those inserts in batches.
+ */
+class JoinLoader {
+
+    private final SimpleLifesteal plugin;
+    private final DatabaseManager databaseManager;
+    private final long windowTicks;
+
+    // Guarded by this.
+    private Map<UUID, CompletableFuture<PlayerState>> pending = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+
+    private final AtomicLong requestedLoads = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    JoinLoader(SimpleLifesteal plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.windowTicks = Math.max(1L, plugin.getConfig().getLong("database.join-loader.window-ticks", 1));
+    }
+
+    /**
+     * Requests a player's state. The future completes with the loaded state, or null if the
+     * player has no row yet.
+     */
+    CompletableFuture<PlayerState> load(UUID uuid) {
+        requestedLoads.incrementAndGet();
+        CompletableFuture<PlayerState> future;
+        boolean schedule = false;
+        synchronized (this) {
+            future = pending.get(uuid);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(uuid, future);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                schedule = true;
+            }
+        }
+
+        if (schedule) {
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, this::flush, windowTicks);
+            } else {
+                flush();
+            }
+        }
+        return future;
+    }
+
+    private void flush() {
+        Map<UUID, CompletableFuture<PlayerState>> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            flushScheduled = false;
+        }
+        if (batch.isEmpty()) return;
+
+        try {
+            List<UUID> uuids = new ArrayList<>(batch.keySet());
+            Map<UUID, PlayerState> loaded = databaseManager.loadPlayerStates(uuids);
+            batches.incrementAndGet();
+            queries.addAndGet((uuids.size() + DatabaseManager.MAX_IN_CLAUSE - 1) / DatabaseManager.MAX_IN_CLAUSE);
+
+            for (Map.Entry<UUID, CompletableFuture<PlayerState>> entry : batch.entrySet()) {
+                entry.getValue().complete(loaded.get(entry.getKey()));
+            }
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to load a batch of " + batch.size() + " players", e);
+            for (CompletableFuture<PlayerState> future : batch.values()) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    long getRequestedLoads() {
+        return requestedLoads.get();
+    }
+
+    long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Average number of database queries issued per requested load.
+     */
+    double getQueriesPerJoin() {
+        long requested = requestedLoads.get();
+        return requested == 0 ? 0.0 : queries.get() / (double) requested;
+    }
+}
@@ -0,0 +1,108 @@
+package com.jellypudding.simpleLifesteal.managers;
+
+import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Watches the server's average tick time and decides how much cosmetic work (shrine boss bar,
+ * particles and sounds) to do, so cosmetics are the first thing dropped when the server lags.
+ * Steps down one level when the tick time goes over a threshold, and only steps back up after it
+ * has stayed comfortably below that threshold for several samples.
+ */
+public class LoadGovernor {
+
+    public enum Level {
+        // Run every n-th time a task fires; 0 means never.
+        FULL(1, 1, 1),
+        REDUCED(2, 2, 3),
+        OFF(4, 0, 0);
+
+        private final int proximityEvery;
+        private final int soundEvery;
+        private final int particleEvery;
+
+        Level(int proximityEvery, int soundEvery, int particleEvery) {
+            this.proximityEvery = proximityEvery;
+            this.soundEvery = soundEvery;
+            this.particleEvery = particleEvery;
+        }
+
+        private static boolean allows(int every, long run) {
+            return every > 0 && run % every == 0;
+        }
+
+        public boolean allowsProximity(long run) {
+            return allows(proximityEvery, run);
+        }
+
+        public boolean allowsSound(long run) {
+            return allows(soundEvery, run);
+        }
+
+        public boolean allowsParticles(long run) {
+            return allows(particleEvery, run);
+        }
+    }
+
+    private static final long SAMPLE_INTERVAL_TICKS = 20L;
+
+    private final double reduceAboveMspt;
+    private final double offAboveMspt;
+    private final double recoveryMargin;
+    private final int recoverySamples;
+
+    private volatile Level level = Level.FULL;
+    private int samplesBelow = 0;
+    private BukkitTask sampleTask;
+
+    public LoadGovernor(SimpleLifesteal plugin) {
+        this.reduceAboveMspt = plugin.getConfig().getDouble("performance.cosmetics.reduce-above-mspt", 40.0);
+        this.offAboveMspt = Math.max(reduceAboveMspt, plugin.getConfig().getDouble("performance.cosmetics.off-above-mspt", 48.0));
+        this.recoveryMargin = Math.max(0.0, plugin.getConfig().getDouble("performance.cosmetics.recovery-margin-mspt", 5.0));
+        this.recoverySamples = Math.max(1, plugin.getConfig().getInt("performance.cosmetics.recovery-samples", 10));
+
+        if (plugin.getConfig().getBoolean("performance.cosmetics.adaptive", true)) {
+            sampleTask = Bukkit.getScheduler().runTaskTimer(plugin, this::sample, SAMPLE_INTERVAL_TICKS, SAMPLE_INTERVAL_TICKS);
+        }
+    }
+
+    private void sample() {
+        double mspt = Bukkit.getServer().getAverageTickTime();
+
+        Level current = level;
+        if (current != Level.OFF && mspt > thresholdFor(current)) {
+            // Degrade straight away, one step at a time.
+            level = current == Level.FULL ? Level.REDUCED : Level.OFF;
+            samplesBelow = 0;
+            return;
+        }
+
+        if (current == Level.FULL) return;
+        Level better = current == Level.OFF ? Level.REDUCED : Level.FULL;
+        if (mspt < thresholdFor(better) - recoveryMargin) {
+            if (++samplesBelow >= recoverySamples) {
+                level = better;
+                samplesBelow = 0;
+            }
+        } else {
+            samplesBelow = 0;
+        }
+    }
+
+    // Tick time above which a level is left for the next lower one.
+    private double thresholdFor(Level from) {
+        return from == Level.FULL ? reduceAboveMspt : offAboveMspt;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public void shutdown() {
+        if (sampleTask != null) {
+            sampleTask.cancel();
+            sampleTask = null;
+        }
+    }
+}
@@ -5,101 +5,322 @@ import com.jellypudding.simpleLifesteal.database.DatabaseManager;
 import org.bukkit.Bukkit;
 import org.bukkit.attribute.Attribute;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.logging.Level;
 
 public class PlayerDataManager {
 
     private final SimpleLifesteal plugin;
     private final DatabaseManager databaseManager;
-    // Cache: UUID -> current_hearts
-    private final ConcurrentHashMap<UUID, Integer> heartCache;
+    // Cache: UUID -> hearts, individual max hearts and grace expiry, with the per-player locking around it.
+    private final PlayerStateStore store;
+
+    // Write-behind: mutations only mark the player dirty and a periodic flush saves them in one batch.
+    private final boolean writeBehind;
+    private BukkitTask flushTask;
+
+    // Resolves joins in batches; used both for prefetching and for joins that were not prefetched.
+    private static final long JOIN_LOAD_TIMEOUT_SECONDS = 10;
+    private final JoinLoader joinLoader;
+
+    // How long a state read during AsyncPlayerPreLoginEvent waits for the player's join to promote it.
+    private static final long STAGED_LOAD_TTL_MILLIS = 30_000L;
+
+    // Lookups (joins and heart reads) served from the cache versus ones that needed SQLite.
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
 
     private final int startingHearts;
     private final int maxHearts;
-    private final int minHearts = 0;
 
     public PlayerDataManager(SimpleLifesteal plugin) {
         this.plugin = plugin;
         this.databaseManager = plugin.getDatabaseManager();
-        this.heartCache = new ConcurrentHashMap<>();
         this.startingHearts = plugin.getStartingHearts();
         this.maxHearts = plugin.getMaxHearts();
+        this.store = new PlayerStateStore(Math.max(16, Bukkit.getMaxPlayers()), startingHearts, maxHearts,
+                databaseManager::loadPlayerState, plugin.getStatsManager());
+        this.joinLoader = new JoinLoader(plugin, databaseManager);
+        this.writeBehind = plugin.getConfig().getBoolean("database.write-behind.enabled", true);
+
+        if (writeBehind) {
+            long maxStalenessTicks = Math.max(1L, plugin.getConfig().getLong("database.write-behind.max-staleness-seconds", 5)) * 20L;
+            flushTask = Bukkit.getScheduler().runTaskTimer(plugin, this::flushDirtyPlayers, maxStalenessTicks, maxStalenessTicks);
+        }
+    }
+
+    /**
+     * Reads a joining player's state ahead of time. Called from {@code AsyncPlayerPreLoginEvent},
+     * which is already off the main thread, so the join itself needs no database query.
+     */
+    public void prefetchPlayerData(UUID uuid) {
+        if (store.get(uuid) != null) return;
+
+        long now = System.currentTimeMillis();
+        // Drop entries for logins that never reached the join (disconnects, later denials).
+        store.expireStaged(now - STAGED_LOAD_TTL_MILLIS);
+
+        try {
+            long generation = store.evictionGeneration(uuid);
+            PlayerState loaded = joinLoader.load(uuid).get(JOIN_LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            // Not staged if the player changed while it was read; the join then loads them again.
+            store.stage(uuid, loaded, generation, now);
+        } catch (Exception e) {
+            // The join falls back to loading the player itself.
+            plugin.getLogger().log(Level.WARNING, "Could not prefetch player data for UUID " + uuid, e);
+        }
     }
 
     /**
-     * Asynchronously loads player data and executes a callback on the main thread
-     * once the data is loaded and cached.
+     * Keeps an offline player's state cached until {@link #releaseOfflinePlayer(UUID)}, loading it
+     * in the background if needed, so a later heart change (e.g. their combat log NPC being
+     * killed) does not query the database on the main thread.
+     */
+    public void prefetchOfflinePlayer(UUID uuid) {
+        // Pinned first: the NPC usually appears while the player's quit save is still queued, and
+        // that save would otherwise evict the entry once it completes.
+        store.pin(uuid);
+        if (store.get(uuid) != null) return;
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> store.ensureCached(uuid));
+    }
+
+    /**
+     * Releases a state kept by {@link #prefetchOfflinePlayer(UUID)}, saving and dropping it once
+     * nothing else needs it. Does nothing more if the player is online.
+     */
+    public void releaseOfflinePlayer(UUID uuid) {
+        if (!store.unpin(uuid)) return;
+        if (Bukkit.getPlayer(uuid) != null || store.get(uuid) == null) return;
+        savePlayerData(uuid, true);
+    }
+
+    /**
+     * Loads player data and executes a callback on the main thread once the data is loaded and
+     * cached. Uses the cached or prefetched state when there is one, otherwise loads it
+     * asynchronously in a single query. New players who qualify for a grace period are cached
+     * without being written to the database, and the callback is not run for them.
      *
      * @param player The player whose data to load.
-     * @param callback A Consumer that accepts the loaded heart count.
+     * @param callback A Consumer that accepts the loaded state.
      */
-    public void loadPlayerData(Player player, Consumer<Integer> callback) {
+    public void loadPlayerData(Player player, Consumer<PlayerState> callback) {
         UUID uuid = player.getUniqueId();
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            int hearts = databaseManager.getPlayerHearts(uuid);
-            // Player not found in DB.
-            if (hearts == -1) {
-                hearts = startingHearts;
-                databaseManager.setPlayerHearts(uuid, hearts);
+        PlayerStateStore.StagedLoad staged = store.takeStaged(uuid);
+
+        // Still cached after a quick rejoin (the quit save has not evicted it yet) or because hearts
+        // changed while offline. The entry is at least as new as the database, so no query is needed.
+        PlayerState cached;
+        synchronized (store.lockFor(uuid)) {
+            cached = store.get(uuid);
+            if (cached != null) {
+                // A new session stops a quit save still in flight from evicting it before completeLoad.
+                cached.beginSession();
             }
+        }
+        if (cached != null && !cached.isInGracePeriod()) {
+            cacheHits.incrementAndGet();
+            completeLoad(player, null, callback);
+            return;
+        }
 
-            final int finalHearts = hearts;
+        if (staged != null && System.currentTimeMillis() - staged.stagedAt <= STAGED_LOAD_TTL_MILLIS) {
+            cacheHits.incrementAndGet();
+            completeLoad(player, staged.state, callback);
+            return;
+        }
+        cacheMisses.incrementAndGet();
+
+        joinLoader.load(uuid).whenComplete((loaded, error) -> {
+            if (error != null) {
+                plugin.getLogger().log(Level.SEVERE, "Could not load player data for UUID " + uuid, error);
+            }
 
             // Update cache and execute callback synchronously.
             Bukkit.getScheduler().runTask(plugin, () -> {
-                heartCache.put(uuid, finalHearts);
-
-                if (player != null && player.isOnline()) {
-                    updatePlayerMaxHealth(player, finalHearts);
-                }
-
-                // Execute the original callback if provided.
-                if (callback != null) {
-                    callback.accept(finalHearts);
-                }
+                if (!player.isOnline()) return;
+                completeLoad(player, loaded, callback);
             });
         });
     }
 
+    /**
+     * Caches a joining player's state and starts their session. Runs on the main thread.
+     *
+     * @param loaded The state read from the database, or null if the player has no row.
+     */
+    private void completeLoad(Player player, PlayerState loaded, Consumer<PlayerState> callback) {
+        UUID uuid = player.getUniqueId();
+        PlayerState state;
+        boolean isNew;
+        synchronized (store.lockFor(uuid)) {
+            // An entry can already exist if the player's hearts changed while they were offline;
+            // it may be newer than the database, so keep it.
+            PlayerState cached = store.get(uuid);
+            isNew = cached == null && loaded == null;
+            state = cached != null ? cached : (isNew ? new PlayerState(startingHearts, null) : loaded);
+
+            state.beginSession();
+
+            GracePeriodManager gracePeriodManager = plugin.getGracePeriodManager();
+            if (isNew && gracePeriodManager != null && gracePeriodManager.startGracePeriod(player, state)) {
+                store.put(uuid, state);
+                return;
+            }
+
+            store.put(uuid, state);
+            if (isNew) {
+                // Under the lock, so no heart change can be counted before the player is.
+                plugin.getStatsManager().playerAdded(state.getHearts());
+            }
+        }
+
+        // Player not found in DB. Queued outside the lock, as submitting can block on a full queue.
+        if (isNew) {
+            databaseManager.queueNewPlayer(uuid, startingHearts);
+        }
+        updatePlayerMaxHealth(player, state.getHearts());
+
+        // Execute the original callback if provided.
+        if (callback != null) {
+            callback.accept(state);
+        }
+    }
+
     public void savePlayerData(UUID uuid, boolean removeFromCache) {
-        if (heartCache.containsKey(uuid)) {
-            int hearts = heartCache.get(uuid);
-            // Save to database asynchronously.
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                databaseManager.setPlayerHearts(uuid, hearts);
-                if (removeFromCache) {
-                    heartCache.remove(uuid);
-                }
-            });
-        } else {
+        // This save writes the latest value, so any pending write-behind flush is covered by it.
+        store.clearDirty(uuid);
+        PlayerState state = store.get(uuid);
+        if (state == null) {
             // Should never happen.
             plugin.getLogger().warning("Attempted to save data for UUID " + uuid + " which was not in cache.");
+            return;
+        }
+        long session = state.getSession();
+
+        // Players in their grace period are not part of Lifesteal yet, so nothing is persisted.
+        if (state.isInGracePeriod()) {
+            if (removeFromCache) {
+                store.evict(uuid, state, session);
+            }
+            return;
         }
+
+        // Queue on the database writer thread, which commits writes in batches.
+        databaseManager.queuePlayerHearts(uuid, state::getHearts).whenComplete((ignored, error) -> {
+            if (removeFromCache) {
+                store.evict(uuid, state, session);
+            }
+        });
     }
 
     public void saveAllPlayerData() {
-        plugin.getLogger().info("Saving all player heart data synchronously...");
-        for (Map.Entry<UUID, Integer> entry : heartCache.entrySet()) {
-            databaseManager.setPlayerHearts(entry.getKey(), entry.getValue());
+        plugin.getLogger().info("Saving all player heart data...");
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        store.clearAllDirty();
+
+        Map<UUID, Integer> batch = new HashMap<>();
+        store.forEach((uuid, state) -> {
+            if (!state.isInGracePeriod()) {
+                batch.put(uuid, state.getHearts());
+            }
+        });
+        // The write goes through the same queue as everything before it, so ordering is preserved.
+        try {
+            databaseManager.queuePlayerHeartsBatch(batch).get(30, TimeUnit.SECONDS);
+            plugin.getLogger().info("Finished saving player heart data.");
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Timed out or failed while waiting for player heart data to save.", e);
+        }
+    }
+
+    /**
+     * Writes every dirty player's current hearts in a single queued batch.
+     * Runs every {@code database.write-behind.max-staleness-seconds} when write-behind is enabled.
+     */
+    public void flushDirtyPlayers() {
+        if (!store.hasDirty()) return;
+
+        Map<UUID, Integer> batch = new HashMap<>();
+        store.drainDirty(uuid -> {
+            PlayerState state = store.get(uuid);
+            if (state != null && !state.isInGracePeriod()) {
+                batch.put(uuid, state.getHearts());
+            }
+        });
+        if (!batch.isEmpty()) {
+            databaseManager.queuePlayerHeartsBatch(batch);
         }
-        plugin.getLogger().info("Finished saving player heart data synchronously.");
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    public long getJoinLoadRequests() {
+        return joinLoader.getRequestedLoads();
+    }
+
+    public long getJoinLoadBatches() {
+        return joinLoader.getBatches();
+    }
+
+    public double getQueriesPerJoin() {
+        return joinLoader.getQueriesPerJoin();
+    }
+
+    /**
+     * Returns the cached state for a loaded player, or null if the player is not cached.
+     */
+    public PlayerState getCachedState(UUID uuid) {
+        return store.get(uuid);
+    }
+
+    /**
+     * Ends a player's grace period and writes their current hearts, adding them to Lifesteal.
+     */
+    public void endGracePeriod(UUID uuid) {
+        PlayerState state;
+        synchronized (store.lockFor(uuid)) {
+            state = store.get(uuid);
+            if (state == null || !state.isInGracePeriod()) return;
+
+            state.setGraceExpiryMillis(0);
+            plugin.getStatsManager().playerAdded(state.getHearts());
+        }
+        databaseManager.queuePlayerHearts(uuid, state::getHearts);
     }
 
     public int getPlayerHearts(UUID uuid) {
-        if (heartCache.containsKey(uuid)) {
-            return heartCache.get(uuid);
-        } else {
-            int dbHearts = databaseManager.getPlayerHearts(uuid);
-            return (dbHearts == -1) ? startingHearts : dbHearts;
+        PlayerState state = store.get(uuid);
+        if (state != null) {
+            cacheHits.incrementAndGet();
+            return state.getHearts();
         }
+        cacheMisses.incrementAndGet();
+        int dbHearts = databaseManager.getPlayerHearts(uuid);
+        return (dbHearts == -1) ? startingHearts : dbHearts;
     }
 
     public int getPlayerMaxHearts(UUID uuid) {
-        Integer individualMax = databaseManager.getPlayerMaxHearts(uuid);
+        PlayerState state = store.get(uuid);
+        (state != null ? cacheHits : cacheMisses).incrementAndGet();
+        Integer individualMax = (state != null) ? state.getMaxHearts() : databaseManager.getPlayerMaxHearts(uuid);
         return (individualMax != null) ? individualMax : maxHearts;
     }
 
@@ -109,13 +330,7 @@ public class PlayerDataManager {
             return;
         }
 
-        databaseManager.setPlayerMaxHearts(uuid, newMaxHearts);
-
-        int currentHearts = getPlayerHearts(uuid);
-        if (currentHearts > newMaxHearts) {
-            setPlayerHearts(uuid, newMaxHearts);
-        }
-
+        updateMaxHearts(uuid, currentMax -> newMaxHearts);
         plugin.getLogger().info("Set max hearts to " + newMaxHearts + " for UUID " + uuid);
     }
 
@@ -124,31 +339,45 @@ public class PlayerDataManager {
             return false;
         }
 
-        int currentMax = getPlayerMaxHearts(uuid);
-        int newMax = currentMax + amount;
-        setPlayerMaxHearts(uuid, newMax);
-
+        int newMax = updateMaxHearts(uuid, currentMax -> currentMax + amount);
         plugin.getLogger().info("Increased max hearts by " + amount + " for UUID " + uuid + " (new max: " + newMax + ")");
         return true;
     }
 
-    private void setHeartsInternal(UUID uuid, int hearts) {
-        // Get individual player's max hearts instead of global max
-        int playerMaxHearts = getPlayerMaxHearts(uuid);
-        // Clamp hearts (0 to playerMaxHearts).
-        hearts = Math.max(minHearts, Math.min(hearts, playerMaxHearts));
-        heartCache.put(uuid, hearts);
+    /**
+     * Atomically changes a player's individual heart limit, lowering their hearts if they are now
+     * over it. The cached hearts and limit are then queued as one write, after the player's lock
+     * is released.
+     *
+     * @param update Receives the current limit and returns the new one.
+     * @return The new limit.
+     */
+    private int updateMaxHearts(UUID uuid, IntUnaryOperator update) {
+        PlayerState state = store.updateMaxHearts(uuid, update);
+        databaseManager.queuePlayerState(uuid, state);
+        refreshMaxHealth(uuid);
+        return store.maxHeartsOf(state);
+    }
 
-        // Update player's actual max health if they are online
+    /**
+     * Updates the player's actual max health from their cached hearts if they are online.
+     * Safe to call from any thread; off the main thread the update is scheduled onto it.
+     */
+    private void refreshMaxHealth(UUID uuid) {
+        if (!Bukkit.isPrimaryThread()) {
+            Bukkit.getScheduler().runTask(plugin, () -> refreshMaxHealth(uuid));
+            return;
+        }
         Player player = Bukkit.getPlayer(uuid);
-        if (player != null && player.isOnline()) {
-            updatePlayerMaxHealth(player, hearts);
+        PlayerState state = store.get(uuid);
+        if (player != null && player.isOnline() && state != null) {
+            updatePlayerMaxHealth(player, state.getHearts());
         }
     }
 
     private void updatePlayerMaxHealth(Player player, int hearts) {
         // Ensure hearts is at least 1 (representing half a heart in game)
-        double newMaxHealth = Math.max(1.0, hearts * 2.0); 
+        double newMaxHealth = Math.max(1.0, hearts * 2.0);
         try {
             player.getAttribute(Attribute.MAX_HEALTH).setBaseValue(newMaxHealth);
             if (player.getHealth() > newMaxHealth) {
@@ -159,25 +388,77 @@ public class PlayerDataManager {
         }
     }
 
+    private void markChanged(UUID uuid) {
+        if (writeBehind) {
+            store.markDirty(uuid);
+        } else {
+            savePlayerData(uuid, false);
+        }
+    }
+
+    /**
+     * Atomically applies an update to a player's hearts. The result is clamped between 0 and the
+     * player's heart limit. Safe to call from any thread: concurrent updates to the same player are
+     * serialised, so none are lost.
+     *
+     * @param uuid The UUID of the player.
+     * @param update Receives the current hearts and returns the new value.
+     * @return The player's hearts after the update.
+     */
+    public int updateHearts(UUID uuid, IntUnaryOperator update) {
+        int newHearts = store.updateHearts(uuid, update);
+        // Outside the lock: without write-behind this queues a write, which can block on a full queue.
+        markChanged(uuid);
+        refreshMaxHealth(uuid);
+        return newHearts;
+    }
+
     public void setPlayerHearts(UUID uuid, int hearts) {
-        setHeartsInternal(uuid, hearts);
-        savePlayerData(uuid, false);
+        updateHearts(uuid, current -> hearts);
+    }
+
+    /**
+     * Moves one heart from the victim to the killer and writes both sides in a single transaction.
+     * If the killer is already at their limit, only the victim loses a heart and the result reports
+     * {@link HeartTransfer#isKillerFull()} so the caller can hand out a heart item instead.
+     *
+     * @param victimUuid The player losing a heart.
+     * @param killerUuid The player gaining it, or null if there is no eligible killer.
+     */
+    public HeartTransfer transferHeart(UUID victimUuid, UUID killerUuid) {
+        HeartTransfer transfer = store.transferHeart(victimUuid, killerUuid);
+
+        // Queued once both locks are released, as submitting can block on a full queue. The write
+        // reads the cached hearts when it runs, so it can never put back an older value.
+        PlayerState victimState = transfer.getVictimState();
+        PlayerState killerState = transfer.getKillerState();
+        boolean persistVictim = !victimState.isInGracePeriod();
+        boolean persistKiller = killerState != null && !killerState.isInGracePeriod();
+        if (persistVictim && persistKiller) {
+            databaseManager.queueHeartTransfer(victimUuid, victimState::getHearts, killerUuid, killerState::getHearts);
+        } else if (persistVictim) {
+            databaseManager.queueHeartTransfer(victimUuid, victimState::getHearts, null, null);
+        } else if (persistKiller) {
+            databaseManager.queueHeartTransfer(killerUuid, killerState::getHearts, null, null);
+        }
+
+        refreshMaxHealth(victimUuid);
+        if (killerUuid != null) {
+            refreshMaxHealth(killerUuid);
+        }
+        return transfer;
     }
 
     public void addHearts(UUID uuid, int amount) {
-        int currentHearts = getPlayerHearts(uuid);
-        int newHearts = currentHearts + amount;
-        setPlayerHearts(uuid, newHearts);
+        updateHearts(uuid, current -> current + amount);
     }
 
     public void removeHearts(UUID uuid, int amount) {
-        int currentHearts = getPlayerHearts(uuid);
-        int newHearts = currentHearts - amount;
-        setPlayerHearts(uuid, newHearts);
+        updateHearts(uuid, current -> current - amount);
     }
 
     /**
-     * Intended for API usage (shop plugins).
+     * Intended for API usage (shop plugins). Safe to call from any thread.
      *
      * @param playerUuid The UUID of the player.
      * @param amount The number of hearts to add.
@@ -188,22 +469,15 @@ public class PlayerDataManager {
             return false;
         }
 
-        int currentHearts = getPlayerHearts(playerUuid);
-        int playerMaxHearts = getPlayerMaxHearts(playerUuid);
-
-        if (currentHearts >= playerMaxHearts) {
+        int added = store.giveHearts(playerUuid, amount);
+        if (added == 0) {
             return false;
         }
+        markChanged(playerUuid);
+        refreshMaxHealth(playerUuid);
 
-        int newHearts = currentHearts + amount;
-
-        if (newHearts > playerMaxHearts) {
-            newHearts = playerMaxHearts;
-        }
-
-        setPlayerHearts(playerUuid, newHearts);
-        plugin.getLogger().info("API: Added " + (newHearts - currentHearts) + " heart(s) to " + playerUuid + ". New total: " + newHearts);
+        plugin.getLogger().info("API: Added " + added + " heart(s) to " + playerUuid + ". New total: " + getPlayerHearts(playerUuid));
         return true;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package com.jellypudding.simpleLifesteal.managers;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cached per-player state held by {@link PlayerDataManager}. It is loaded in a single query
+ * when the player joins and is the source of truth for every hot-path read afterwards.
+ */
+public class PlayerState {
+
+    private volatile int hearts;
+    // Individual heart limit, or null to use the global maximum.
+    private volatile Integer maxHearts;
+    // When the player's grace period ends (epoch millis), or 0 if they are not in one.
+    private volatile long graceExpiryMillis;
+    // Incremented on every join, so work queued during an earlier session can tell it is stale.
+    private final AtomicLong session = new AtomicLong();
+
+    public PlayerState(int hearts, Integer maxHearts) {
+        this.hearts = hearts;
+        this.maxHearts = maxHearts;
+    }
+
+    public int getHearts() {
+        return hearts;
+    }
+
+    public void setHearts(int hearts) {
+        this.hearts = hearts;
+    }
+
+    public Integer getMaxHearts() {
+        return maxHearts;
+    }
+
+    public void setMaxHearts(Integer maxHearts) {
+        this.maxHearts = maxHearts;
+    }
+
+    public long getGraceExpiryMillis() {
+        return graceExpiryMillis;
+    }
+
+    public void setGraceExpiryMillis(long graceExpiryMillis) {
+        this.graceExpiryMillis = graceExpiryMillis;
+    }
+
+    public boolean isInGracePeriod() {
+        return graceExpiryMillis > 0;
+    }
+
+    public long getSession() {
+        return session.get();
+    }
+
+    /**
+     * Starts a new session for this player and returns its number.
+     */
+    public long beginSession() {
+        return session.incrementAndGet();
+    }
+}
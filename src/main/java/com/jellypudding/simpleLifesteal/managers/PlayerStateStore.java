@@ -0,0 +1,395 @@
+package com.jellypudding.simpleLifesteal.managers;
+
+import com.jellypudding.simpleLifesteal.utils.ConcurrentUuidMap;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The cached player states and the per-player locking that keeps read-modify-write updates to them
+ * atomic. Holds no Bukkit or database references: states missing from the cache are read through
+ * the loader given to the constructor, which is only ever called without a lock held, so a slow
+ * read never holds up other players sharing the same lock stripe.
+ */
+class PlayerStateStore {
+
+    /**
+     * Told about changes to the hearts stored for players in the database, as they are made in the
+     * cache. Players in their grace period are not in the database, so their changes are left out.
+     * Called with the player's lock held.
+     */
+    interface HeartsListener {
+        /**
+         * A player without a row was cached; the row is created when they are next written.
+         */
+        void playerAdded(int hearts);
+
+        void heartsChanged(int from, int to);
+    }
+
+    // Serialises read-modify-write updates per player; callers may be on any thread.
+    static final int LOCK_STRIPES = 64;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    // Evictions per stripe, guarded by that stripe's lock. A state read from the database is only
+    // cached if no entry on its stripe was evicted during the read, so it cannot be older than one
+    // that was just saved and dropped.
+    private final long[] evictions = new long[LOCK_STRIPES];
+
+    // Keyed on the UUID's two longs so hot-path lookups are lock-free and allocation-free.
+    private final ConcurrentUuidMap<PlayerState> states;
+    // Players whose latest change is waiting for a write-behind flush.
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+    // Players whose entry is kept cached however it is saved, with how many times each is pinned.
+    // Changed under the player's lock, so an eviction sees a consistent count.
+    private final Map<UUID, Integer> pinned = new ConcurrentHashMap<>();
+    // States read before a player's join, waiting for the join to promote them. An entry only
+    // exists while the player is not cached and nothing on their stripe has been evicted since it
+    // was read, so it can never be older than a change made in the meantime.
+    private final ConcurrentUuidMap<StagedLoad> staged = new ConcurrentUuidMap<>();
+
+    static final class StagedLoad {
+        // Null if the player has no row yet.
+        final PlayerState state;
+        final long stagedAt;
+
+        private StagedLoad(PlayerState state, long stagedAt) {
+            this.state = state;
+            this.stagedAt = stagedAt;
+        }
+    }
+
+    private final Function<UUID, PlayerState> loader;
+    private final HeartsListener listener;
+    private final int startingHearts;
+    private final int defaultMaxHearts;
+    private final int minHearts = 0;
+
+    /**
+     * @param loader Reads a player's state from the database, or returns null if they have no row.
+     */
+    PlayerStateStore(int expectedPlayers, int startingHearts, int defaultMaxHearts, Function<UUID, PlayerState> loader) {
+        this(expectedPlayers, startingHearts, defaultMaxHearts, loader, null);
+    }
+
+    /**
+     * @param listener Told about heart changes, or null.
+     */
+    PlayerStateStore(int expectedPlayers, int startingHearts, int defaultMaxHearts,
+                     Function<UUID, PlayerState> loader, HeartsListener listener) {
+        this.states = new ConcurrentUuidMap<>(expectedPlayers);
+        this.startingHearts = startingHearts;
+        this.defaultMaxHearts = defaultMaxHearts;
+        this.loader = loader;
+        this.listener = listener;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    static int stripeFor(UUID uuid) {
+        long h = uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
+        return (int) (h ^ (h >>> 32)) & (LOCK_STRIPES - 1);
+    }
+
+    Object lockFor(UUID uuid) {
+        return locks[stripeFor(uuid)];
+    }
+
+    PlayerState get(UUID uuid) {
+        return states.get(uuid);
+    }
+
+    /**
+     * Caches a state. Callers must hold the player's lock.
+     */
+    void put(UUID uuid, PlayerState state) {
+        states.put(uuid, state);
+        staged.remove(uuid);
+    }
+
+    void forEach(BiConsumer<UUID, PlayerState> action) {
+        states.forEach(action);
+    }
+
+    /**
+     * The player's heart limit: their individual one, or the global maximum.
+     */
+    int maxHeartsOf(PlayerState state) {
+        return state.getMaxHearts() != null ? state.getMaxHearts() : defaultMaxHearts;
+    }
+
+    /**
+     * Makes sure the player's state is cached, reading it from the database if needed.
+     */
+    PlayerState ensureCached(UUID uuid) {
+        return withState(uuid, state -> state);
+    }
+
+    /**
+     * Runs an action on the player's cached state while holding their lock. If the player is not
+     * cached, their state is read first with no lock held and cached unless another thread got
+     * there first.
+     */
+    private <T> T withState(UUID uuid, Function<PlayerState, T> action) {
+        int stripe = stripeFor(uuid);
+        Object lock = locks[stripe];
+        PlayerState loaded = null;
+        boolean hasRow = false;
+        long generation = 0;
+        while (true) {
+            synchronized (lock) {
+                PlayerState state = states.get(uuid);
+                if (state == null && loaded != null && evictions[stripe] == generation) {
+                    states.put(uuid, loaded);
+                    // The cached state is changed from now on, so a staged read of it is out of date.
+                    staged.remove(uuid);
+                    if (!hasRow && listener != null) {
+                        listener.playerAdded(loaded.getHearts());
+                    }
+                    state = loaded;
+                }
+                if (state != null) {
+                    return action.apply(state);
+                }
+                generation = evictions[stripe];
+            }
+            PlayerState read = loader.apply(uuid);
+            hasRow = read != null;
+            loaded = hasRow ? read : new PlayerState(startingHearts, null);
+        }
+    }
+
+    /**
+     * Clamps and stores a player's hearts. Callers must hold the player's lock.
+     *
+     * @return The stored (clamped) heart count.
+     */
+    private int applyHearts(PlayerState state, int hearts) {
+        hearts = Math.max(minHearts, Math.min(hearts, maxHeartsOf(state)));
+        int previous = state.getHearts();
+        state.setHearts(hearts);
+        if (previous != hearts && listener != null && !state.isInGracePeriod()) {
+            listener.heartsChanged(previous, hearts);
+        }
+        return hearts;
+    }
+
+    /**
+     * Atomically applies an update to a player's hearts, clamped between 0 and their heart limit.
+     *
+     * @return The player's hearts after the update.
+     */
+    int updateHearts(UUID uuid, IntUnaryOperator update) {
+        return withState(uuid, state -> applyHearts(state, update.applyAsInt(state.getHearts())));
+    }
+
+    /**
+     * Adds hearts unless the player is already at their limit.
+     *
+     * @return The number of hearts actually added (after clamping), or 0 if the player was already
+     *         at their limit.
+     */
+    int giveHearts(UUID uuid, int amount) {
+        return withState(uuid, state -> {
+            int current = state.getHearts();
+            if (current >= maxHeartsOf(state)) {
+                return 0;
+            }
+            return applyHearts(state, current + amount) - current;
+        });
+    }
+
+    /**
+     * Atomically changes a player's individual heart limit, lowering their hearts if they are now
+     * over it.
+     *
+     * @param update Receives the current limit and returns the new one.
+     * @return The player's state, for writing both values back.
+     */
+    PlayerState updateMaxHearts(UUID uuid, IntUnaryOperator update) {
+        return withState(uuid, state -> {
+            state.setMaxHearts(update.applyAsInt(maxHeartsOf(state)));
+            applyHearts(state, state.getHearts());
+            // Written as a whole by the caller, so any pending write-behind flush is covered.
+            dirty.remove(uuid);
+            return state;
+        });
+    }
+
+    /**
+     * Moves one heart from the victim to the killer with both players' locks held. If the killer
+     * is already at their limit, only the victim loses a heart.
+     *
+     * @param killerUuid The player gaining the heart, or null if there is no eligible killer.
+     */
+    HeartTransfer transferHeart(UUID victimUuid, UUID killerUuid) {
+        // Take both players' locks in stripe order so two opposite transfers cannot deadlock.
+        int victimStripe = stripeFor(victimUuid);
+        int killerStripe = killerUuid != null ? stripeFor(killerUuid) : victimStripe;
+        Object first = locks[Math.min(victimStripe, killerStripe)];
+        Object second = locks[Math.max(victimStripe, killerStripe)];
+        while (true) {
+            // Both states are cached first, since neither may be read from the database under a lock.
+            PlayerState victimState = ensureCached(victimUuid);
+            PlayerState killerState = killerUuid != null ? ensureCached(killerUuid) : null;
+            synchronized (first) {
+                synchronized (second) {
+                    // One was evicted while no lock was held; start again with what is cached now.
+                    if (states.get(victimUuid) != victimState
+                            || (killerUuid != null && states.get(killerUuid) != killerState)) {
+                        continue;
+                    }
+                    int victimHearts = applyHearts(victimState, victimState.getHearts() - 1);
+
+                    int killerHearts = -1;
+                    boolean killerFull = false;
+                    if (killerState != null) {
+                        if (killerState.getHearts() >= maxHeartsOf(killerState)) {
+                            killerFull = true;
+                            killerHearts = killerState.getHearts();
+                            killerState = null;
+                        } else {
+                            killerHearts = applyHearts(killerState, killerState.getHearts() + 1);
+                        }
+                    }
+
+                    // Written straight away rather than through write-behind, so both sides share one transaction.
+                    dirty.remove(victimUuid);
+                    if (killerState != null) {
+                        dirty.remove(killerUuid);
+                    }
+                    return new HeartTransfer(victimHearts, killerHearts, killerFull, victimState, killerState);
+                }
+            }
+        }
+    }
+
+    void markDirty(UUID uuid) {
+        dirty.add(uuid);
+    }
+
+    void clearDirty(UUID uuid) {
+        dirty.remove(uuid);
+    }
+
+    void clearAllDirty() {
+        dirty.clear();
+    }
+
+    boolean hasDirty() {
+        return !dirty.isEmpty();
+    }
+
+    /**
+     * Removes every dirty player and passes each one to the action.
+     */
+    void drainDirty(Consumer<UUID> action) {
+        Iterator<UUID> iter = dirty.iterator();
+        while (iter.hasNext()) {
+            UUID uuid = iter.next();
+            iter.remove();
+            action.accept(uuid);
+        }
+    }
+
+    /**
+     * Keeps a player's entry cached, whether or not it is cached yet, until it is unpinned as many
+     * times as it was pinned.
+     */
+    void pin(UUID uuid) {
+        synchronized (lockFor(uuid)) {
+            pinned.merge(uuid, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * @return true if the player is no longer pinned at all, false if they are still pinned or
+     *         were not pinned.
+     */
+    boolean unpin(UUID uuid) {
+        synchronized (lockFor(uuid)) {
+            if (!pinned.containsKey(uuid)) {
+                return false;
+            }
+            return pinned.computeIfPresent(uuid, (id, count) -> count > 1 ? count - 1 : null) == null;
+        }
+    }
+
+    /**
+     * Removes a player's entry once their quit save has been written, unless they have rejoined
+     * since (a newer session), it has changed again and is waiting for a write-behind flush, or
+     * it is pinned.
+     *
+     * @return true if the entry was removed.
+     */
+    boolean evict(UUID uuid, PlayerState state, long session) {
+        int stripe = stripeFor(uuid);
+        synchronized (locks[stripe]) {
+            if (state.getSession() != session || dirty.contains(uuid) || pinned.containsKey(uuid)) {
+                return false;
+            }
+            if (!states.remove(uuid, state)) {
+                return false;
+            }
+            evictions[stripe]++;
+            staged.remove(uuid);
+            return true;
+        }
+    }
+
+    /**
+     * Returns the eviction generation of the player's stripe. Read before loading a player outside
+     * the store, and passed to {@link #stage(UUID, PlayerState, long, long)} with the result.
+     */
+    long evictionGeneration(UUID uuid) {
+        int stripe = stripeFor(uuid);
+        synchronized (locks[stripe]) {
+            return evictions[stripe];
+        }
+    }
+
+    /**
+     * Stages a state read ahead of the player's join. Discarded if the player has been cached
+     * since, or an entry on their stripe was evicted during the read, as the read may then be
+     * older than a change that was saved and dropped.
+     *
+     * @param loaded The state read, or null if the player has no row.
+     * @param generation The stripe's eviction generation from before the read.
+     * @return true if the state was staged.
+     */
+    boolean stage(UUID uuid, PlayerState loaded, long generation, long now) {
+        int stripe = stripeFor(uuid);
+        synchronized (locks[stripe]) {
+            if (states.get(uuid) != null || evictions[stripe] != generation) {
+                return false;
+            }
+            staged.put(uuid, new StagedLoad(loaded, now));
+            return true;
+        }
+    }
+
+    /**
+     * Removes and returns the player's staged state, or null if there is none.
+     */
+    StagedLoad takeStaged(UUID uuid) {
+        return staged.remove(uuid);
+    }
+
+    /**
+     * Drops staged states older than the cutoff (logins that never reached the join).
+     */
+    void expireStaged(long cutoff) {
+        staged.forEach((uuid, load) -> {
+            if (load.stagedAt < cutoff) {
+                staged.remove(uuid, load);
+            }
+        });
+    }
+}
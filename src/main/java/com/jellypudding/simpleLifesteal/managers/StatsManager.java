@@ -0,0 +1,156 @@
+package com.jellypudding.simpleLifesteal.managers;
+
+import com.jellypudding.simpleLifesteal.Metrics;
+import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+import com.jellypudding.simpleLifesteal.database.DatabaseManager;
+import com.jellypudding.simpleLifesteal.database.StatsSnapshot;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * In-memory mirror of the server-wide statistics, so commands and bStats never wait on a query.
+ * The starting values are read once in the background, and every ban, heart change and minted
+ * heart item updates the mirror as it is made.
+ *
+ * The starting values are read through the database write queue before anything else is queued,
+ * so they include none of the changes recorded here. Changes made before they arrive are simply
+ * added to them when they do.
+ */
+public class StatsManager implements PlayerStateStore.HeartsListener {
+
+    private static final int BAN_DAYS_SHOWN = 7;
+    private static final String ITEMS_MINTED_STAT = "items_minted";
+
+    private final DatabaseManager databaseManager;
+
+    private final AtomicLong itemsMinted = new AtomicLong();
+    private final AtomicLong totalBans = new AtomicLong();
+    // Guarded by this. Counts may be negative until the starting values arrive.
+    private final Map<Integer, Integer> heartHistogram = new HashMap<>();
+    private final Map<String, Integer> bansPerDay = new HashMap<>();
+    private volatile boolean loaded = false;
+
+    public StatsManager(SimpleLifesteal plugin) {
+        this.databaseManager = plugin.getDatabaseManager();
+
+        String since = today().minusDays(BAN_DAYS_SHOWN - 1).toString();
+        databaseManager.queueReadStats(since).whenComplete((snapshot, error) -> {
+            if (error != null) {
+                plugin.getLogger().log(Level.SEVERE, "Could not read statistics from database!", error);
+                return;
+            }
+            addSnapshot(snapshot);
+        });
+    }
+
+    private void addSnapshot(StatsSnapshot snapshot) {
+        synchronized (this) {
+            snapshot.getHeartHistogram().forEach((hearts, players) -> heartHistogram.merge(hearts, players, Integer::sum));
+            snapshot.getBansPerDay().forEach((day, bans) -> bansPerDay.merge(day, bans, Integer::sum));
+        }
+        totalBans.addAndGet(snapshot.getTotalBans());
+        itemsMinted.addAndGet(snapshot.getStat(ITEMS_MINTED_STAT));
+        loaded = true;
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    @Override
+    public synchronized void playerAdded(int hearts) {
+        heartHistogram.merge(hearts, 1, Integer::sum);
+    }
+
+    @Override
+    public synchronized void heartsChanged(int from, int to) {
+        heartHistogram.merge(from, -1, Integer::sum);
+        heartHistogram.merge(to, 1, Integer::sum);
+    }
+
+    /**
+     * Records a new plugin ban. Called when the ban record is queued.
+     */
+    public void recordBan() {
+        totalBans.incrementAndGet();
+        synchronized (this) {
+            bansPerDay.merge(today().toString(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Records heart items created by the plugin (withdrawn, crafted or dropped for a full killer).
+     */
+    public void recordItemsMinted(int amount) {
+        if (amount <= 0) return;
+        itemsMinted.addAndGet(amount);
+        databaseManager.queueStatIncrement(ITEMS_MINTED_STAT, amount);
+    }
+
+    public long getItemsMinted() {
+        return itemsMinted.get();
+    }
+
+    /**
+     * Every plugin ban ever recorded, including ones lifted since.
+     */
+    public long getTotalBans() {
+        return totalBans.get();
+    }
+
+    /**
+     * Players banned by the plugin right now.
+     */
+    public int getCurrentBans() {
+        return databaseManager.getTotalHeartBans();
+    }
+
+    /**
+     * Players per heart count, or an empty map until the starting values have been read.
+     */
+    public synchronized SortedMap<Integer, Integer> getHeartHistogram() {
+        SortedMap<Integer, Integer> histogram = new TreeMap<>();
+        if (!loaded) return histogram;
+        heartHistogram.forEach((hearts, players) -> {
+            if (players > 0) {
+                histogram.put(hearts, players);
+            }
+        });
+        return histogram;
+    }
+
+    /**
+     * Bans per UTC day over the last week, including days without bans.
+     */
+    public synchronized SortedMap<String, Integer> getRecentBansPerDay() {
+        SortedMap<String, Integer> days = new TreeMap<>();
+        LocalDate today = today();
+        for (int i = BAN_DAYS_SHOWN - 1; i >= 0; i--) {
+            String day = today.minusDays(i).toString();
+            days.put(day, bansPerDay.getOrDefault(day, 0));
+        }
+        return days;
+    }
+
+    public void registerCharts(Metrics metrics) {
+        metrics.addCustomChart(new Metrics.SingleLineChart("heart_bans",
+                () -> (int) Math.min(Integer.MAX_VALUE, getTotalBans())));
+        metrics.addCustomChart(new Metrics.SingleLineChart("heart_items_minted",
+                () -> (int) Math.min(Integer.MAX_VALUE, getItemsMinted())));
+        metrics.addCustomChart(new Metrics.AdvancedPie("heart_distribution", () -> {
+            Map<String, Integer> values = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Integer> entry : getHeartHistogram().entrySet()) {
+                values.put(entry.getKey() + (entry.getKey() == 1 ? " heart" : " hearts"), entry.getValue());
+            }
+            return values;
+        }));
+    }
+}
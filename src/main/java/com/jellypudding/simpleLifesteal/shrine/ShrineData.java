@@ -1,10 +1,12 @@
 package com.jellypudding.simpleLifesteal.shrine;
 
+import com.jellypudding.simpleLifesteal.utils.LongHashSet;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 public class ShrineData {
@@ -14,7 +16,11 @@ public class ShrineData {
     private final long createdTimeMillis;
     private final long expiryTimeMillis;
     private final int heartsCost;
-    private final List<Location> placedBlocks = new ArrayList<>();
+    // Positions of the shrine's blocks packed into longs, plus the box around them so blocks
+    // broken elsewhere are rejected with a few comparisons.
+    private final LongHashSet placedBlocks = new LongHashSet(32);
+    private int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
 
     public ShrineData(Location center, int remainingUnbans, long expiryTimeMillis, int heartsCost) {
         this.center = center.clone();
@@ -48,8 +54,32 @@ public class ShrineData {
         return heartsCost;
     }
 
-    public List<Location> getPlacedBlocks() {
-        return placedBlocks;
+    // Same layout as Minecraft's own block position keys: 26 bits x, 26 bits z, 12 bits y.
+    private static long packBlock(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+    }
+
+    public void addPlacedBlock(int x, int y, int z) {
+        placedBlocks.add(packBlock(x, y, z));
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        minZ = Math.min(minZ, z);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+        maxZ = Math.max(maxZ, z);
+    }
+
+    /**
+     * Returns the shrine's remaining blocks. Allocates; meant for building and demolishing.
+     */
+    public List<Block> getPlacedBlocks() {
+        World world = center.getWorld();
+        List<Block> blocks = new ArrayList<>(placedBlocks.size());
+        if (world == null) return blocks;
+        for (long key : placedBlocks.toArray()) {
+            blocks.add(world.getBlockAt((int) (key >> 38), (int) (key << 52 >> 52), (int) (key << 26 >> 38)));
+        }
+        return blocks;
     }
 
     public long getRemainingSeconds() {
@@ -78,27 +108,19 @@ public class ShrineData {
         return Math.sqrt(dx * dx + dz * dz) <= radius;
     }
 
-    public boolean removeShrineBlock(Location blockLoc) {
-        Iterator<Location> iter = placedBlocks.iterator();
-        while (iter.hasNext()) {
-            Location loc = iter.next();
-            if (loc.getWorld() != null && loc.getWorld().equals(blockLoc.getWorld())
-                    && loc.getBlockX() == blockLoc.getBlockX()
-                    && loc.getBlockY() == blockLoc.getBlockY()
-                    && loc.getBlockZ() == blockLoc.getBlockZ()) {
-                iter.remove();
-                return true;
-            }
-        }
-        return false;
+    public boolean removeShrineBlock(World world, int x, int y, int z) {
+        if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) return false;
+        if (world != center.getWorld()) return false;
+        return placedBlocks.remove(packBlock(x, y, z));
     }
 
     public void purgeDestroyedBlocks() {
-        placedBlocks.removeIf(loc -> {
-            if (loc.getWorld() == null) return true;
-            Material type = loc.getWorld().getBlockAt(loc).getType();
-            return type == Material.AIR || type == Material.CAVE_AIR;
-        });
+        for (Block block : getPlacedBlocks()) {
+            Material type = block.getType();
+            if (type == Material.AIR || type == Material.CAVE_AIR) {
+                placedBlocks.remove(packBlock(block.getX(), block.getY(), block.getZ()));
+            }
+        }
     }
 
     public boolean isFullyDestroyed() {
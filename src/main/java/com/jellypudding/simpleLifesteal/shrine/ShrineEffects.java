@@ -0,0 +1,75 @@
+package com.jellypudding.simpleLifesteal.shrine;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.Sound;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * The shrine's ambient particles and sounds, sent only to the given viewers rather than to the
+ * whole world. Every emission position is worked out once when the shrine appears.
+ */
+public class ShrineEffects {
+
+    private static final class Emission {
+        private final Particle particle;
+        private final double x;
+        private final double y;
+        private final double z;
+        private final int count;
+        private final double spread;
+        private final double spreadY;
+        private final double speed;
+
+        private Emission(Particle particle, Location center, double dx, double dy, double dz,
+                         int count, double spread, double spreadY, double speed) {
+            this.particle = particle;
+            this.x = center.getX() + dx;
+            this.y = center.getY() + dy;
+            this.z = center.getZ() + dz;
+            this.count = count;
+            this.spread = spread;
+            this.spreadY = spreadY;
+            this.speed = speed;
+        }
+    }
+
+    private final Location center;
+    private final Emission[] emissions;
+
+    public ShrineEffects(Location center) {
+        this.center = center.clone();
+        this.emissions = new Emission[] {
+                new Emission(Particle.SOUL,        center,  0, 2,  0, 3, 0.4, 0.5, 0.02),
+                new Emission(Particle.ASH,         center,  0, 1,  0, 5, 1.0, 0.5, 0.05),
+                new Emission(Particle.LARGE_SMOKE, center, -1, 4, -1, 1, 0.1, 0.1, 0.01),
+                new Emission(Particle.LARGE_SMOKE, center,  1, 4, -1, 1, 0.1, 0.1, 0.01),
+                new Emission(Particle.LARGE_SMOKE, center, -1, 4,  1, 1, 0.1, 0.1, 0.01),
+                new Emission(Particle.LARGE_SMOKE, center,  1, 4,  1, 1, 0.1, 0.1, 0.01)
+        };
+    }
+
+    public void spawnParticles(Collection<UUID> viewers) {
+        if (viewers.isEmpty()) return;
+        for (UUID uuid : viewers) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player == null) continue;
+            for (Emission e : emissions) {
+                player.spawnParticle(e.particle, e.x, e.y, e.z, e.count, e.spread, e.spreadY, e.spread, e.speed);
+            }
+        }
+    }
+
+    public void playSound(Collection<UUID> viewers, Sound sound, float volume, float pitch) {
+        if (viewers.isEmpty()) return;
+        for (UUID uuid : viewers) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player == null) continue;
+            player.playSound(center, sound, volume, pitch);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.jellypudding.simpleLifesteal.shrine;
 
 import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+import com.jellypudding.simpleLifesteal.managers.BroadcastAggregator;
+import com.jellypudding.simpleLifesteal.utils.HeartLedger;
 import com.jellypudding.simpleLifesteal.utils.PlayerNameUtil;
 import com.jellypudding.simpleLifesteal.utils.UnbanService;
 import net.kyori.adventure.text.Component;
@@ -16,13 +18,11 @@ import org.bukkit.block.BlockFace;
 import org.bukkit.block.data.Rotatable;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
-import org.bukkit.inventory.ItemStack;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.awt.Color;
 import java.util.Random;
 import java.util.function.Consumer;
-import java.util.logging.Level;
 
 public class ShrineManager {
 
@@ -167,17 +167,11 @@ public class ShrineManager {
 
         Bukkit.broadcast(announcement);
 
-        if (plugin.isDiscordRelayAPIReady()) {
-            try {
-                com.jellypudding.discordRelay.DiscordRelayAPI.sendFormattedMessage(
-                        "Blood Shrine",
-                        "A Blood Shrine has appeared at (" + bx + ", " + bz + ").",
-                        new Color(139, 0, 0)
-                );
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "Failed to send Blood Shrine Discord notification.", e);
-            }
-        }
+        plugin.getDiscordNotifier().post(
+                "Blood Shrine",
+                "A Blood Shrine has appeared at (" + bx + ", " + bz + ").",
+                new Color(139, 0, 0)
+        );
 
         expiryTask = Bukkit.getScheduler().runTaskLater(plugin, this::detonateShrine, durationMins * 60L * 20L);
 
@@ -226,15 +220,13 @@ public class ShrineManager {
     }
 
     private void place(World world, ShrineData data, int x, int y, int z, Material mat) {
-        Location loc = new Location(world, x, y, z);
-        data.getPlacedBlocks().add(loc);
-        world.getBlockAt(loc).setType(mat, false);
+        data.addPlacedBlock(x, y, z);
+        world.getBlockAt(x, y, z).setType(mat, false);
     }
 
     private void placeSkull(World world, ShrineData data, int x, int y, int z, BlockFace facing) {
-        Location loc = new Location(world, x, y, z);
-        data.getPlacedBlocks().add(loc);
-        Block block = world.getBlockAt(loc);
+        data.addPlacedBlock(x, y, z);
+        Block block = world.getBlockAt(x, y, z);
         block.setType(Material.WITHER_SKELETON_SKULL, false);
         Rotatable rotatable = (Rotatable) block.getBlockData();
         rotatable.setRotation(facing);
@@ -256,17 +248,11 @@ public class ShrineManager {
                 .append(Component.text(" has exploded.", NamedTextColor.DARK_GRAY))
                 .build());
 
-        if (plugin.isDiscordRelayAPIReady()) {
-            try {
-                com.jellypudding.discordRelay.DiscordRelayAPI.sendFormattedMessage(
-                        "Blood Shrine",
-                        "The Blood Shrine has exploded.",
-                        new Color(139, 0, 0)
-                );
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "Failed to send Blood Shrine detonation Discord notification.", e);
-            }
-        }
+        plugin.getDiscordNotifier().post(
+                "Blood Shrine",
+                "The Blood Shrine has exploded.",
+                new Color(139, 0, 0)
+        );
 
         scheduleNextSpawn();
     }
@@ -274,8 +260,7 @@ public class ShrineManager {
     private void demolishBlocks() {
         if (activeShrine == null) return;
 
-        for (Location loc : activeShrine.getPlacedBlocks()) {
-            Block block = loc.getBlock();
+        for (Block block : activeShrine.getPlacedBlocks()) {
             if (block.getType() != Material.AIR && block.getType() != Material.CAVE_AIR) {
                 block.setType(Material.AIR, false);
             }
@@ -307,7 +292,7 @@ public class ShrineManager {
 
         // Check heart items in inventory before the (potentially async) lookup
         int cost = activeShrine.getHeartsCost();
-        int itemCount = countHeartItems(performer.getInventory());
+        int itemCount = HeartLedger.scan(performer.getInventory(), plugin.getHeartItemUtil()).getTotal();
         if (itemCount < cost) {
             performer.sendMessage(Component.text("You need " + cost + " heart" + (cost == 1 ? "" : "s")
                     + " in your inventory. You have " + itemCount + ".", NamedTextColor.RED));
@@ -318,7 +303,7 @@ public class ShrineManager {
             performer.sendMessage(Component.text("Looking up Bedrock player...", NamedTextColor.GRAY));
         }
 
-        UnbanService.unban(plugin, targetName, (uuid, unbanned) -> {
+        UnbanService.resolve(plugin, targetName, uuid -> {
             // Always process the result on the main thread (the lookup may be async for Bedrock players)
             Bukkit.getScheduler().runTask(plugin, () -> {
                 if (activeShrine == null) {
@@ -335,7 +320,18 @@ public class ShrineManager {
                 String resolvedName = targetOffline.getName() != null ? targetOffline.getName() : targetName;
                 Component targetComponent = PlayerNameUtil.getFormattedPlayerName(plugin.getChromaTagAPI(), uuid, resolvedName);
 
-                if (!unbanned) {
+                // The inventory may have changed during the lookup, so count again now. Counting,
+                // paying and unbanning all happen in this tick, so nothing can change in between.
+                Inventory inventory = performer.getInventory();
+                HeartLedger ledger = HeartLedger.scan(inventory, plugin.getHeartItemUtil());
+                if (ledger.getTotal() < cost) {
+                    performer.sendMessage(Component.text("You need " + cost + " heart" + (cost == 1 ? "" : "s")
+                            + " in your inventory. You have " + ledger.getTotal() + ".", NamedTextColor.RED));
+                    return;
+                }
+
+                // Answered from the ban index, so nothing is paid for a player who is not banned.
+                if (!plugin.getDatabaseManager().isPlayerBannedByPlugin(uuid)) {
                     performer.sendMessage(Component.text()
                             .append(targetComponent)
                             .append(Component.text(" is not banned by the Lifesteal system.", NamedTextColor.RED))
@@ -343,15 +339,19 @@ public class ShrineManager {
                     return;
                 }
 
-                // Consume heart items from inventory
-                removeHeartItems(performer.getInventory(), cost);
+                // Take payment first; the ban is only lifted once the heart items are gone.
+                if (!ledger.consume(inventory, plugin.getHeartItemUtil(), cost)) {
+                    performer.sendMessage(Component.text("Your heart items changed before they could be sacrificed. Please try again.", NamedTextColor.RED));
+                    return;
+                }
+                plugin.getDatabaseManager().queueRemovePluginBan(uuid);
 
                 activeShrine.decrementUnbans();
 
                 plugin.getLogger().info(performer.getName() + " used the Blood Shrine to unban " + resolvedName
                         + " (UUID: " + uuid + "), sacrificing " + cost + " heart(s).");
 
-                plugin.getDatabaseManager().recordShrineUnban(
+                plugin.getDatabaseManager().queueShrineUnban(
                         uuid, resolvedName,
                         performer.getUniqueId(), performer.getName()
                 );
@@ -363,25 +363,24 @@ public class ShrineManager {
 
                 UnbanService.removeGameBan(targetOffline);
 
-                Bukkit.broadcast(Component.text()
+                plugin.getBroadcastAggregator().broadcast("shrine-unban", Component.text()
                         .append(performer.displayName())
                         .append(Component.text(" sacrificed " + cost + " heart" + (cost == 1 ? "" : "s") + " at the ", NamedTextColor.DARK_GRAY))
                         .append(Component.text("Blood Shrine", NamedTextColor.DARK_RED, TextDecoration.BOLD))
                         .append(Component.text(" to free ", NamedTextColor.DARK_GRAY))
                         .append(targetComponent)
+                        .build(), targetComponent, 0, (freed, ignored) -> Component.text()
+                        .append(Component.text("Sacrifices at the ", NamedTextColor.DARK_GRAY))
+                        .append(Component.text("Blood Shrine", NamedTextColor.DARK_RED, TextDecoration.BOLD))
+                        .append(Component.text(" freed ", NamedTextColor.DARK_GRAY))
+                        .append(BroadcastAggregator.joinSubjects(freed, NamedTextColor.DARK_GRAY))
                         .build());
 
-                if (plugin.isDiscordRelayAPIReady()) {
-                    try {
-                        com.jellypudding.discordRelay.DiscordRelayAPI.sendFormattedMessage(
-                                "Blood Shrine Unban",
-                                performer.getName() + " sacrificed " + cost + " heart" + (cost == 1 ? "" : "s") + " at the Blood Shrine to unban " + resolvedName + ".",
-                                new Color(139, 0, 0)
-                        );
-                    } catch (Exception e) {
-                        plugin.getLogger().log(Level.WARNING, "Failed to send Blood Shrine unban Discord notification.", e);
-                    }
-                }
+                plugin.getDiscordNotifier().post(
+                        "Blood Shrine Unban",
+                        performer.getName() + " sacrificed " + cost + " heart" + (cost == 1 ? "" : "s") + " at the Blood Shrine to unban " + resolvedName + ".",
+                        new Color(139, 0, 0)
+                );
 
                 if (activeShrine.isExhausted()) {
                     detonateShrine();
@@ -390,32 +389,6 @@ public class ShrineManager {
         });
     }
 
-    private int countHeartItems(Inventory inv) {
-        int count = 0;
-        for (ItemStack item : inv.getContents()) {
-            if (item != null && plugin.getHeartItemUtil().isHeartItem(item)) {
-                count += item.getAmount();
-            }
-        }
-        return count;
-    }
-
-    private void removeHeartItems(Inventory inv, int amount) {
-        int toRemove = amount;
-        for (int i = 0; i < inv.getSize() && toRemove > 0; i++) {
-            ItemStack item = inv.getItem(i);
-            if (item != null && plugin.getHeartItemUtil().isHeartItem(item)) {
-                if (item.getAmount() <= toRemove) {
-                    toRemove -= item.getAmount();
-                    inv.setItem(i, null);
-                } else {
-                    item.setAmount(item.getAmount() - toRemove);
-                    toRemove = 0;
-                }
-            }
-        }
-    }
-
     public ShrineData getActiveShrine() {
         return activeShrine;
     }
@@ -0,0 +1,74 @@
+package com.jellypudding.simpleLifesteal.utils;
+
+import com.jellypudding.simpleLifesteal.SimpleLifesteal;
+import org.bukkit.Material;
+import org.bukkit.Tag;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Which blocks react to a right click (containers, doors, buttons and so on), so right-clicking
+ * them with a heart item opens or uses the block instead of consuming the heart. Built once at
+ * startup from block tags, a list of extra blocks and the config overrides, then answered with a
+ * bit lookup by material ordinal.
+ */
+public class BlockInteractionTable {
+
+    // Whole families of interactable blocks; new variants are picked up automatically.
+    private static final List<Tag<Material>> INTERACTIVE_TAGS = List.of(
+            Tag.DOORS, Tag.TRAPDOORS, Tag.BUTTONS, Tag.FENCE_GATES,
+            Tag.SHULKER_BOXES, Tag.ANVIL, Tag.CAMPFIRES
+    );
+
+    // Looked up by name so blocks missing from this server version are skipped.
+    private static final List<String> EXTRA_BLOCKS = List.of(
+            "CHEST", "TRAPPED_CHEST", "ENDER_CHEST", "BARREL",
+            "COPPER_CHEST", "EXPOSED_COPPER_CHEST", "WEATHERED_COPPER_CHEST", "OXIDIZED_COPPER_CHEST",
+            "WAXED_COPPER_CHEST", "WAXED_EXPOSED_COPPER_CHEST", "WAXED_WEATHERED_COPPER_CHEST", "WAXED_OXIDIZED_COPPER_CHEST",
+            "CRAFTING_TABLE", "ENCHANTING_TABLE", "FURNACE", "BLAST_FURNACE", "SMOKER", "BREWING_STAND",
+            "GRINDSTONE", "LOOM", "STONECUTTER", "CARTOGRAPHY_TABLE", "FLETCHING_TABLE", "SMITHING_TABLE",
+            "CRAFTER", "CHISELED_BOOKSHELF", "LECTERN", "COMPOSTER",
+            "DISPENSER", "DROPPER", "HOPPER",
+            "JUKEBOX", "NOTE_BLOCK", "DECORATED_POT",
+            "BEEHIVE", "BEE_NEST", "BELL", "RESPAWN_ANCHOR", "LODESTONE", "LEVER"
+    );
+
+    private final BitSet interactive = new BitSet(Material.values().length);
+
+    public BlockInteractionTable(SimpleLifesteal plugin) {
+        for (Tag<Material> tag : INTERACTIVE_TAGS) {
+            for (Material material : tag.getValues()) {
+                interactive.set(material.ordinal());
+            }
+        }
+        for (String name : EXTRA_BLOCKS) {
+            Material material = Material.getMaterial(name);
+            if (material != null) {
+                interactive.set(material.ordinal());
+            }
+        }
+
+        // Config overrides win over everything above.
+        for (String name : plugin.getConfig().getStringList("heart-consume.interactive-blocks.add")) {
+            Material material = Material.matchMaterial(name);
+            if (material != null && material.isBlock()) {
+                interactive.set(material.ordinal());
+            } else {
+                plugin.getLogger().warning("Unknown block in heart-consume.interactive-blocks.add: " + name);
+            }
+        }
+        for (String name : plugin.getConfig().getStringList("heart-consume.interactive-blocks.remove")) {
+            Material material = Material.matchMaterial(name);
+            if (material != null) {
+                interactive.clear(material.ordinal());
+            } else {
+                plugin.getLogger().warning("Unknown block in heart-consume.interactive-blocks.remove: " + name);
+            }
+        }
+    }
+
+    public boolean hasInteraction(Material material) {
+        return interactive.get(material.ordinal());
+    }
+}
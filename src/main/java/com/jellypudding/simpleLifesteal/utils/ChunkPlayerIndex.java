@@ -0,0 +1,110 @@
+package com.jellypudding.simpleLifesteal.utils;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Online players grouped by the chunk they stand in, so "who is near this point" only looks at
+ * the chunks overlapping the search radius instead of every online player. Chunk coordinates are
+ * packed into one long per chunk. Kept up to date by the caller whenever a player changes chunk.
+ * Main thread only.
+ */
+public class ChunkPlayerIndex {
+
+    private static final class Position {
+        private UUID worldId;
+        private long chunkKey;
+    }
+
+    // World UUID -> packed chunk key -> players in that chunk.
+    private final Map<UUID, Map<Long, List<Player>>> worlds = new HashMap<>();
+    private final Map<UUID, Position> positions = new HashMap<>();
+    // Reused by query() so looking players up does not allocate a Location per player.
+    private final Location scratch = new Location(null, 0, 0, 0);
+
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Adds or moves a player. Cheap when the player is still in the chunk they were indexed in.
+     */
+    public void update(Player player, Location location) {
+        World world = location.getWorld();
+        if (world == null) return;
+        UUID worldId = world.getUID();
+        long key = chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+
+        Position position = positions.get(player.getUniqueId());
+        if (position != null) {
+            if (position.chunkKey == key && position.worldId.equals(worldId)) return;
+            removeFromChunk(player, position);
+        } else {
+            position = new Position();
+            positions.put(player.getUniqueId(), position);
+        }
+
+        position.worldId = worldId;
+        position.chunkKey = key;
+        worlds.computeIfAbsent(worldId, w -> new HashMap<>())
+                .computeIfAbsent(key, k -> new ArrayList<>(4))
+                .add(player);
+    }
+
+    public void remove(Player player) {
+        Position position = positions.remove(player.getUniqueId());
+        if (position != null) {
+            removeFromChunk(player, position);
+        }
+    }
+
+    private void removeFromChunk(Player player, Position position) {
+        Map<Long, List<Player>> chunks = worlds.get(position.worldId);
+        if (chunks == null) return;
+        List<Player> players = chunks.get(position.chunkKey);
+        if (players == null) return;
+        players.remove(player);
+        if (players.isEmpty()) {
+            chunks.remove(position.chunkKey);
+        }
+    }
+
+    /**
+     * Passes every indexed player within {@code radius} blocks (horizontally) of the given point to
+     * {@code action}.
+     */
+    public void query(World world, double x, double z, double radius, Consumer<Player> action) {
+        Map<Long, List<Player>> chunks = worlds.get(world.getUID());
+        if (chunks == null || chunks.isEmpty()) return;
+
+        double radiusSquared = radius * radius;
+        int minChunkX = (int) Math.floor(x - radius) >> 4;
+        int maxChunkX = (int) Math.floor(x + radius) >> 4;
+        int minChunkZ = (int) Math.floor(z - radius) >> 4;
+        int maxChunkZ = (int) Math.floor(z + radius) >> 4;
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                List<Player> players = chunks.get(chunkKey(chunkX, chunkZ));
+                if (players == null) continue;
+                for (int i = 0; i < players.size(); i++) {
+                    Player player = players.get(i);
+                    player.getLocation(scratch);
+                    double dx = scratch.getX() - x;
+                    double dz = scratch.getZ() - z;
+                    if (dx * dx + dz * dz <= radiusSquared) {
+                        action.accept(player);
+                    }
+                }
+            }
+        }
+    }
+}
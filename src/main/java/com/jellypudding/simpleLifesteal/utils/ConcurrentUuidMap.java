@@ -0,0 +1,233 @@
+package com.jellypudding.simpleLifesteal.utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A UUID-keyed map using open addressing over the UUID's two longs.
+ * <p>
+ * Reads are lock-free and allocation-free: a lookup hashes the key once and probes flat
+ * {@code long[]} arrays, with no per-entry node objects and no {@code UUID.equals} calls.
+ * Writes are serialised on the map. This suits player caches, which are read constantly
+ * but only written on join, quit and heart changes.
+ */
+public final class ConcurrentUuidMap<V> {
+
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    // Marks a removed entry. The slot keeps its key so probe chains stay intact for lock-free readers;
+    // only the same key may reuse it. Tombstones are dropped when the table is rebuilt.
+    private static final Object TOMBSTONE = new Object();
+    private static final int MIN_CAPACITY = 16;
+
+    private static final class Table {
+        private final long[] most;
+        private final long[] least;
+        private final Object[] values;
+        private final int mask;
+        // Slots ever claimed in this table (live entries plus tombstones). Guarded by the map.
+        private int used;
+
+        private Table(int capacity) {
+            this.most = new long[capacity];
+            this.least = new long[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+        }
+    }
+
+    private volatile Table table;
+    private volatile int size;
+
+    public ConcurrentUuidMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public ConcurrentUuidMap(int expectedSize) {
+        this.table = new Table(capacityFor(expectedSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(UUID key) {
+        long msb = key.getMostSignificantBits();
+        long lsb = key.getLeastSignificantBits();
+        Table t = table;
+        int i = index(msb, lsb, t.mask);
+        while (true) {
+            Object value = VALUES.getAcquire(t.values, i);
+            if (value == null) {
+                return null;
+            }
+            if (t.most[i] == msb && t.least[i] == lsb) {
+                return value == TOMBSTONE ? null : (V) value;
+            }
+            i = (i + 1) & t.mask;
+        }
+    }
+
+    public boolean containsKey(UUID key) {
+        return get(key) != null;
+    }
+
+    public synchronized V put(UUID key, V value) {
+        return putInternal(key, value, false);
+    }
+
+    public synchronized V putIfAbsent(UUID key, V value) {
+        return putInternal(key, value, true);
+    }
+
+    /**
+     * Returns the value for the key, computing and inserting it if absent. The function runs
+     * outside the map's lock, so it may be called more than once if two threads race; only
+     * one result is kept and returned to both.
+     */
+    public V computeIfAbsent(UUID key, Function<UUID, ? extends V> mappingFunction) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        V created = mappingFunction.apply(key);
+        if (created == null) {
+            return null;
+        }
+        V raced = putIfAbsent(key, created);
+        return raced != null ? raced : created;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized V remove(UUID key) {
+        Table t = table;
+        int slot = findSlot(t, key.getMostSignificantBits(), key.getLeastSignificantBits());
+        Object previous = t.values[slot];
+        if (previous == null || previous == TOMBSTONE) {
+            return null;
+        }
+        VALUES.setRelease(t.values, slot, TOMBSTONE);
+        size--;
+        return (V) previous;
+    }
+
+    /**
+     * Removes the entry only if it is currently mapped to the given value (compared by identity).
+     */
+    public synchronized boolean remove(UUID key, V expected) {
+        Table t = table;
+        int slot = findSlot(t, key.getMostSignificantBits(), key.getLeastSignificantBits());
+        Object current = t.values[slot];
+        if (current == null || current == TOMBSTONE || current != expected) {
+            return false;
+        }
+        VALUES.setRelease(t.values, slot, TOMBSTONE);
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Visits every live entry. Entries added or removed during iteration may or may not be seen.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<UUID, ? super V> action) {
+        Table t = table;
+        for (int i = 0; i < t.values.length; i++) {
+            Object value = VALUES.getAcquire(t.values, i);
+            if (value != null && value != TOMBSTONE) {
+                action.accept(new UUID(t.most[i], t.least[i]), (V) value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V putInternal(UUID key, V value, boolean onlyIfAbsent) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        long msb = key.getMostSignificantBits();
+        long lsb = key.getLeastSignificantBits();
+        Table t = table;
+        int slot = findSlot(t, msb, lsb);
+        Object previous = t.values[slot];
+
+        if (previous != null) {
+            // Slot already belongs to this key (live or tombstone).
+            if (previous == TOMBSTONE) {
+                VALUES.setRelease(t.values, slot, value);
+                size++;
+                return null;
+            }
+            if (!onlyIfAbsent) {
+                VALUES.setRelease(t.values, slot, value);
+            }
+            return (V) previous;
+        }
+
+        if ((t.used + 1) * 2 > t.values.length) {
+            t = rebuild(t, size + 1);
+            slot = findSlot(t, msb, lsb);
+        }
+        t.most[slot] = msb;
+        t.least[slot] = lsb;
+        t.used++;
+        VALUES.setRelease(t.values, slot, value);
+        size++;
+        return null;
+    }
+
+    /**
+     * Copies live entries into a fresh table and publishes it. Readers still probing the old
+     * table see a consistent (if slightly stale) view, since it is never modified again.
+     */
+    private Table rebuild(Table old, int liveEntries) {
+        Table fresh = new Table(capacityFor(liveEntries));
+        for (int i = 0; i < old.values.length; i++) {
+            Object value = old.values[i];
+            if (value != null && value != TOMBSTONE) {
+                int slot = findSlot(fresh, old.most[i], old.least[i]);
+                fresh.most[slot] = old.most[i];
+                fresh.least[slot] = old.least[i];
+                fresh.values[slot] = value;
+                fresh.used++;
+            }
+        }
+        table = fresh;
+        return fresh;
+    }
+
+    private static int findSlot(Table t, long msb, long lsb) {
+        int i = index(msb, lsb, t.mask);
+        while (true) {
+            Object value = t.values[i];
+            if (value == null || (t.most[i] == msb && t.least[i] == lsb)) {
+                return i;
+            }
+            i = (i + 1) & t.mask;
+        }
+    }
+
+    private static int index(long msb, long lsb, int mask) {
+        long h = msb ^ (lsb * 0x9E3779B97F4A7C15L);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    // Keeps the table at most a quarter full after a rebuild, so it takes a while to need another.
+    private static int capacityFor(int entries) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < entries * 4) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -15,13 +15,16 @@ import java.util.List;
 public class HeartItemUtil {
 
     private final NamespacedKey heartKey;
+    // Fully built heart item; new items are copies of it so name, lore and tag are built only once.
+    private final ItemStack template;
 
     public HeartItemUtil(SimpleLifesteal plugin) {
         this.heartKey = new NamespacedKey(plugin, "lifesteal_heart");
+        this.template = buildTemplate();
     }
 
-    public ItemStack createHeartItem(int heartCount) {
-        ItemStack item = new ItemStack(Material.APPLE, heartCount);
+    private ItemStack buildTemplate() {
+        ItemStack item = new ItemStack(Material.APPLE, 1);
         ItemMeta meta = item.getItemMeta();
         
         meta.displayName(Component.text("Heart", NamedTextColor.RED, TextDecoration.BOLD)
@@ -39,13 +42,21 @@ public class HeartItemUtil {
         return item;
     }
 
+    public ItemStack createHeartItem(int heartCount) {
+        ItemStack item = template.clone();
+        item.setAmount(heartCount);
+        return item;
+    }
+
+    /**
+     * Checks the item type first and then reads the tag through the read-only data container
+     * view, so neither check copies the item's meta.
+     */
     public boolean isHeartItem(ItemStack item) {
-        if (item == null || !item.hasItemMeta()) {
+        if (item == null || item.getType() != Material.APPLE) {
             return false;
         }
-        
-        ItemMeta meta = item.getItemMeta();
-        return meta.getPersistentDataContainer().has(heartKey, PersistentDataType.BOOLEAN);
+        return item.getPersistentDataContainer().has(heartKey, PersistentDataType.BOOLEAN);
     }
 
     public NamespacedKey getHeartKey() {
@@ -0,0 +1,88 @@
+package com.jellypudding.simpleLifesteal.utils;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+
+/**
+ * The heart items in an inventory, found in a single pass: which slots hold them and how many
+ * each holds. Used to check and take payment in heart items. Scan and consume on the main thread.
+ */
+public final class HeartLedger {
+
+    private final int[] slots;
+    private final int[] amounts;
+    private final int size;
+    private final int total;
+
+    private HeartLedger(int[] slots, int[] amounts, int size, int total) {
+        this.slots = slots;
+        this.amounts = amounts;
+        this.size = size;
+        this.total = total;
+    }
+
+    public static HeartLedger scan(Inventory inventory, HeartItemUtil heartItemUtil) {
+        ItemStack[] contents = inventory.getContents();
+        int[] slots = new int[8];
+        int[] amounts = new int[8];
+        int size = 0;
+        int total = 0;
+        for (int i = 0; i < contents.length; i++) {
+            ItemStack item = contents[i];
+            if (!heartItemUtil.isHeartItem(item)) continue;
+
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+            }
+            slots[size] = i;
+            amounts[size] = item.getAmount();
+            size++;
+            total += item.getAmount();
+        }
+        return new HeartLedger(slots, amounts, size, total);
+    }
+
+    /**
+     * Total number of heart items found.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Removes {@code amount} heart items from the slots found by the scan. Either everything is
+     * removed or nothing is: if any of the slots needed no longer holds what the scan saw, the
+     * inventory is left untouched and false is returned.
+     */
+    public boolean consume(Inventory inventory, HeartItemUtil heartItemUtil, int amount) {
+        if (amount <= 0) return true;
+        if (amount > total) return false;
+
+        // Validate every slot that will be touched before changing any of them.
+        int needed = amount;
+        int last = 0;
+        for (; last < size && needed > 0; last++) {
+            ItemStack item = inventory.getItem(slots[last]);
+            if (!heartItemUtil.isHeartItem(item) || item.getAmount() != amounts[last]) {
+                return false;
+            }
+            needed -= amounts[last];
+        }
+
+        int toRemove = amount;
+        for (int i = 0; i < last; i++) {
+            if (amounts[i] <= toRemove) {
+                toRemove -= amounts[i];
+                inventory.setItem(slots[i], null);
+            } else {
+                ItemStack item = inventory.getItem(slots[i]);
+                item.setAmount(amounts[i] - toRemove);
+                toRemove = 0;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,126 @@
+package com.jellypudding.simpleLifesteal.utils;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive longs (open addressing with linear probing), so membership checks need no
+ * boxing. {@link Long#MIN_VALUE} marks empty slots and cannot be stored. Not thread-safe.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] table;
+    private int size;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize * 2 - 1)) << 1;
+        table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public boolean add(long value) {
+        if (value == EMPTY) throw new IllegalArgumentException("Long.MIN_VALUE cannot be stored");
+        if ((size + 1) * 2 > table.length) {
+            resize(table.length * 2);
+        }
+        int mask = table.length - 1;
+        int i = mix(value) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == value) return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = value;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) return false;
+        int mask = table.length - 1;
+        int i = mix(value) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == value) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean remove(long value) {
+        if (value == EMPTY) return false;
+        int mask = table.length - 1;
+        int i = mix(value) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == value) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    // Closes the gap left at 'gap' by moving later entries of the probe run back, so lookups never
+    // stop early at a hole.
+    private void shiftBack(int gap) {
+        int mask = table.length - 1;
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            long value = table[i];
+            if (value == EMPTY) break;
+            int home = mix(value) & mask;
+            // Move the entry if its home slot is not between the gap and its current slot.
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                table[gap] = value;
+                gap = i;
+            }
+        }
+        table[gap] = EMPTY;
+    }
+
+    private void resize(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value == EMPTY) continue;
+            int i = mix(value) & mask;
+            while (table[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            table[i] = value;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a copy of the values, safe to iterate while the set is modified.
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int n = 0;
+        for (long value : table) {
+            if (value != EMPTY) values[n++] = value;
+        }
+        return values;
+    }
+}
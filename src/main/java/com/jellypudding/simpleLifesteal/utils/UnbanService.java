@@ -10,38 +10,50 @@ import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public final class UnbanService {
 
     public interface Callback {
         // uuid is null if the player could not be found by name.
         // unbanned is true only if a ban record was actually removed from the database.
-        void done(@Nullable UUID uuid, boolean unbanned);
+        // error is set if the ban record could not be removed; the player is then still banned.
+        void done(@Nullable UUID uuid, boolean unbanned, @Nullable Throwable error);
     }
 
     private UnbanService() {}
 
+    /**
+     * Removes a player's plugin ban. The callback runs once the removal has been committed, off
+     * the main thread.
+     */
     public static void unban(SimpleLifesteal plugin, String playerName, Callback callback) {
+        resolve(plugin, playerName, uuid -> {
+            if (uuid == null) {
+                callback.done(null, false, null);
+                return;
+            }
+            plugin.getDatabaseManager().queueRemovePluginBan(uuid).whenComplete((removed, error) ->
+                    callback.done(uuid, error == null && removed, error));
+        });
+    }
+
+    /**
+     * Looks up a player's UUID without unbanning them. The callback receives null if the player
+     * could not be found; it may run off the main thread for Bedrock players.
+     */
+    public static void resolve(SimpleLifesteal plugin, String playerName, Consumer<UUID> callback) {
         if (playerName.startsWith(".")) {
-            PlayerUUIDUtil.fetchBedrockUUIDAsync(plugin, playerName, uuid -> {
-                if (uuid == null) {
-                    callback.done(null, false);
-                    return;
-                }
-                boolean removed = plugin.getDatabaseManager().removePluginBan(uuid);
-                callback.done(uuid, removed);
-            });
+            PlayerUUIDUtil.fetchBedrockUUIDAsync(plugin, playerName, callback);
             return;
         }
 
         OfflinePlayer target = Bukkit.getOfflinePlayer(playerName);
         if (!target.hasPlayedBefore() && !target.isOnline()) {
-            callback.done(null, false);
+            callback.accept(null);
             return;
         }
-
-        boolean removed = plugin.getDatabaseManager().removePluginBan(target.getUniqueId());
-        callback.done(target.getUniqueId(), removed);
+        callback.accept(target.getUniqueId());
     }
 
     public static void removeGameBan(OfflinePlayer player) {
@@ -0,0 +1,120 @@
+package com.jellypudding.simpleLifesteal.managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiscordNotifierTest {
+
+    private static final Logger LOGGER = Logger.getLogger("DiscordNotifierTest");
+
+    // Records every message instead of sending it to Discord.
+    private static final class RecordingSink implements DiscordNotifier.Sink {
+        private final List<String> titles = new CopyOnWriteArrayList<>();
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private final List<Long> sentAt = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(String title, String message, Color colour) throws Exception {
+            titles.add(title);
+            messages.add(message);
+            sentAt.add(System.nanoTime());
+        }
+    }
+
+    private static void awaitSent(DiscordNotifier notifier, long sent) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (notifier.getSentMessages() < sent && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(sent, notifier.getSentMessages());
+    }
+
+    @Test
+    void messagesWithinTheWindowAreMergedByTitle() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        DiscordNotifier notifier = new DiscordNotifier(LOGGER, sink, 100, 300, 0);
+
+        notifier.post("Player Banned", "Alice ran out of hearts.", Color.RED);
+        notifier.post("Blood Shrine Unban", "Bob was freed.", Color.RED);
+        notifier.post("Player Banned", "Carol ran out of hearts.", Color.RED);
+        notifier.post("Player Banned", "Dave ran out of hearts.", Color.RED);
+        awaitSent(notifier, 2);
+        notifier.shutdown();
+
+        assertEquals(List.of("Player Banned (3)", "Blood Shrine Unban"), sink.titles);
+        assertEquals("• Alice ran out of hearts.\n• Carol ran out of hearts.\n• Dave ran out of hearts.",
+                sink.messages.get(0));
+        assertEquals("Bob was freed.", sink.messages.get(1));
+        assertEquals(4L, notifier.getQueuedMessages());
+    }
+
+    @Test
+    void sendsAreSpacedByTheMinimumInterval() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        long minIntervalMillis = 200;
+        DiscordNotifier notifier = new DiscordNotifier(LOGGER, sink, 100, 0, minIntervalMillis);
+
+        notifier.post("First", "one", Color.RED);
+        awaitSent(notifier, 1);
+        notifier.post("Second", "two", Color.RED);
+        awaitSent(notifier, 2);
+        notifier.shutdown();
+
+        long gapMillis = TimeUnit.NANOSECONDS.toMillis(sink.sentAt.get(1) - sink.sentAt.get(0));
+        assertTrue(gapMillis >= minIntervalMillis - 5, "Second message sent after only " + gapMillis + "ms");
+    }
+
+    @Test
+    void messagesBeyondTheQueueCapacityAreDroppedAndCounted() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink recorder = new RecordingSink();
+        // Holds the first send so later messages pile up in the queue.
+        DiscordNotifier.Sink sink = (title, message, colour) -> {
+            sending.countDown();
+            release.await();
+            recorder.send(title, message, colour);
+        };
+        DiscordNotifier notifier = new DiscordNotifier(LOGGER, sink, 2, 0, 0);
+
+        notifier.post("Held", "first", Color.RED);
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 4; i++) {
+            notifier.post("Queued", "message " + i, Color.RED);
+        }
+
+        assertEquals(3L, notifier.getQueuedMessages());
+        assertEquals(2L, notifier.getDroppedMessages());
+        assertEquals(2, notifier.getPendingMessages());
+
+        release.countDown();
+        awaitSent(notifier, 2);
+        notifier.shutdown();
+
+        assertEquals(List.of("Held", "Queued (2)"), recorder.titles);
+        assertEquals("• message 0\n• message 1", recorder.messages.get(1));
+        assertEquals(0L, notifier.getFailedMessages());
+    }
+
+    @Test
+    void failedSendsAreCounted() throws Exception {
+        DiscordNotifier notifier = new DiscordNotifier(LOGGER, (title, message, colour) -> {
+            throw new IllegalStateException("Discord is unavailable");
+        }, 100, 0, 0);
+
+        notifier.post("Player Banned", "Alice ran out of hearts.", Color.RED);
+        notifier.shutdown();
+
+        assertEquals(1L, notifier.getFailedMessages());
+        assertEquals(0L, notifier.getSentMessages());
+    }
+}
@@ -0,0 +1,348 @@
+package com.jellypudding.simpleLifesteal.managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerStateStoreTest {
+
+    private static final int STARTING_HEARTS = 10;
+    private static final int MAX_HEARTS = 20;
+    private static final int THREADS = 8;
+
+    private static List<UUID> randomUuids(int count) {
+        List<UUID> uuids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            uuids.add(UUID.randomUUID());
+        }
+        return uuids;
+    }
+
+    // Runs the task on several threads at once and rethrows the first failure.
+    private static void runConcurrently(int threads, Runnable task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("Worker failed", failure.get());
+        }
+    }
+
+    @Test
+    void concurrentHeartUpdatesAreNotLost() throws Exception {
+        // A high individual limit so no update is clamped and every one must show in the total.
+        AtomicInteger loads = new AtomicInteger();
+        PlayerStateStore store = new PlayerStateStore(16, STARTING_HEARTS, MAX_HEARTS, uuid -> {
+            loads.incrementAndGet();
+            return new PlayerState(1_000_000, 2_000_000);
+        });
+        List<UUID> players = randomUuids(4);
+        int updatesPerThread = 20_000;
+
+        runConcurrently(THREADS, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < updatesPerThread; i++) {
+                UUID player = players.get(random.nextInt(players.size()));
+                // Add two, then take one: each pair nets exactly +1.
+                store.updateHearts(player, hearts -> hearts + 2);
+                store.updateHearts(player, hearts -> hearts - 1);
+            }
+        });
+
+        int total = 0;
+        for (UUID player : players) {
+            total += store.get(player).getHearts();
+        }
+        assertEquals(players.size() * 1_000_000 + THREADS * updatesPerThread, total);
+        // Racing first touches may each read the row, but only one state per player is kept.
+        assertTrue(loads.get() >= players.size());
+    }
+
+    @Test
+    void concurrentTransfersConserveHearts() throws Exception {
+        // Enough hearts that no victim reaches zero, where they would lose nothing but the killer still gains.
+        PlayerStateStore store = new PlayerStateStore(16, STARTING_HEARTS, MAX_HEARTS,
+                uuid -> new PlayerState(1_000_000, 2_000_000));
+        List<UUID> players = randomUuids(6);
+        int transfersPerThread = 20_000;
+
+        runConcurrently(THREADS, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < transfersPerThread; i++) {
+                UUID victim = players.get(random.nextInt(players.size()));
+                UUID killer = players.get(random.nextInt(players.size()));
+                if (victim.equals(killer)) continue;
+                HeartTransfer transfer = store.transferHeart(victim, killer);
+                assertFalse(transfer.isKillerFull());
+                assertNotNull(transfer.getKillerState());
+            }
+        });
+
+        int total = 0;
+        for (UUID player : players) {
+            total += store.get(player).getHearts();
+        }
+        assertEquals(players.size() * 1_000_000, total);
+    }
+
+    @Test
+    void transferToAFullKillerOnlyTakesFromTheVictim() {
+        PlayerStateStore store = new PlayerStateStore(16, STARTING_HEARTS, MAX_HEARTS, uuid -> null);
+        UUID victim = UUID.randomUUID();
+        UUID killer = UUID.randomUUID();
+        store.updateHearts(killer, hearts -> MAX_HEARTS);
+
+        HeartTransfer transfer = store.transferHeart(victim, killer);
+
+        assertTrue(transfer.isKillerFull());
+        assertNull(transfer.getKillerState());
+        assertEquals(STARTING_HEARTS - 1, transfer.getVictimHearts());
+        assertEquals(MAX_HEARTS, transfer.getKillerHearts());
+        assertEquals(MAX_HEARTS, store.get(killer).getHearts());
+    }
+
+    @Test
+    void heartsAreClampedToTheLimit() {
+        PlayerStateStore store = new PlayerStateStore(16, STARTING_HEARTS, MAX_HEARTS, uuid -> null);
+        UUID player = UUID.randomUUID();
+
+        assertEquals(MAX_HEARTS, store.updateHearts(player, hearts -> hearts + 100));
+        assertEquals(0, store.updateHearts(player, hearts -> -5));
+        assertEquals(MAX_HEARTS - 3, store.giveHearts(player, MAX_HEARTS - 3));
+        assertEquals(3, store.giveHearts(player, 10));
+        assertEquals(0, store.giveHearts(player, 1));
+
+        PlayerState state = store.updateMaxHearts(player, max -> max - 5);
+        assertEquals(MAX_HEARTS - 5, state.getMaxHearts());
+        assertEquals(MAX_HEARTS - 5, state.getHearts());
+    }
+
+    @Test
+    void loadsRunWithoutHoldingTheStripeLock() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        UUID slowPlayer = UUID.randomUUID();
+        // Another player sharing the slow player's lock stripe.
+        UUID neighbour;
+        do {
+            neighbour = UUID.randomUUID();
+        } while (PlayerStateStore.stripeFor(neighbour) != PlayerStateStore.stripeFor(slowPlayer));
+
+        Function<UUID, PlayerState> loader = uuid -> {
+            if (uuid.equals(slowPlayer)) {
+                loadStarted.countDown();
+                try {
+                    releaseLoad.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return null;
+        };
+        PlayerStateStore store = new PlayerStateStore(16, STARTING_HEARTS, MAX_HEARTS, loader);
+
+        Thread slow = new Thread(() -> store.updateHearts(slowPlayer, hearts -> hearts - 1));
+        slow.start();
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        // Would block until the slow load finishes if the load held the stripe lock.
+        UUID other = neighbour;
+        Thread fast = new Thread(() -> store.updateHearts(other, hearts -> hearts + 1));
+        fast.start();
+        fast.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(fast.isAlive(), "Update waited on another player's database read");
+        assertEquals(STARTING_HEARTS + 1, store.get(neighbour).getHearts());
+
+        releaseLoad.countDown();
+        slow.join();
+        assertEquals(STARTING_HEARTS - 1, store.get(slowPlayer).getHearts());
+    }
+
+    @Test
+    void loadIsDiscardedIfAnEntryWasEvictedDuringIt() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        UUID player = UUID.randomUUID();
+        // The first read returns the value from before the player's last change was saved.
+        PlayerStateStore store = new PlayerStateStore(16, STARTING_HEARTS, MAX_HEARTS, uuid -> {
+            if (loads.incrementAndGet() == 1) {
+                loadStarted.countDown();
+                try {
+                    releaseLoad.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new PlayerState(STARTING_HEARTS, null);
+            }
+            return new PlayerState(STARTING_HEARTS - 1, null);
+        });
+
+        Thread slow = new Thread(() -> store.ensureCached(player));
+        slow.start();
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        // Meanwhile the player is cached, loses a heart, is saved and is evicted.
+        PlayerState current = new PlayerState(STARTING_HEARTS, null);
+        synchronized (store.lockFor(player)) {
+            store.put(player, current);
+        }
+        store.updateHearts(player, hearts -> hearts - 1);
+        long session = current.getSession();
+        assertTrue(store.evict(player, current, session));
+
+        releaseLoad.countDown();
+        slow.join();
+        assertEquals(STARTING_HEARTS - 1, store.get(player).getHearts());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictKeepsDirtyAndRejoinedPlayers() {
+        PlayerStateStore store = new PlayerStateStore(16, STARTING_HEARTS, MAX_HEARTS, uuid -> null);
+        UUID player = UUID.randomUUID();
+        PlayerState state = store.ensureCached(player);
+        long session = state.beginSession();
+
+        store.markDirty(player);
+        assertFalse(store.evict(player, state, session));
+        store.clearDirty(player);
+
+        state.beginSession();
+        assertFalse(store.evict(player, state, session));
+        assertSame(state, store.get(player));
+
+        assertTrue(store.evict(player, state, state.getSession()));
+        assertNull(store.get(player));
+    }
+
+    @Test
+    void pinnedEntrySurvivesTheQuitSaveThatWasQueuedBeforeIt() {
+        PlayerStateStore store = new PlayerStateStore(16, STARTING_HEARTS, MAX_HEARTS, uuid -> null);
+        UUID player = UUID.randomUUID();
+        PlayerState state = store.ensureCached(player);
+        long session = state.beginSession();
+
+        // The player quits (their save is queued), then their combat log NPC appears.
+        store.pin(player);
+        assertFalse(store.evict(player, state, session));
+        assertSame(state, store.get(player));
+
+        // A second NPC for the same player keeps it pinned until both are gone.
+        store.pin(player);
+        assertFalse(store.unpin(player));
+        assertFalse(store.evict(player, state, session));
+        assertTrue(store.unpin(player));
+        assertFalse(store.unpin(player));
+
+        assertTrue(store.evict(player, state, session));
+        assertNull(store.get(player));
+    }
+
+    @Test
+    void stagedLoadIsDroppedOnceThePlayerChanges() {
+        PlayerStateStore store = new PlayerStateStore(16, STARTING_HEARTS, MAX_HEARTS,
+                uuid -> new PlayerState(STARTING_HEARTS, null));
+        UUID player = UUID.randomUUID();
+
+        // Pre-login stages the player's hearts, then their combat log NPC is killed before the join.
+        long generation = store.evictionGeneration(player);
+        assertTrue(store.stage(player, new PlayerState(STARTING_HEARTS, null), generation, 0));
+        PlayerState state = store.ensureCached(player);
+        store.updateHearts(player, hearts -> hearts - 1);
+        assertTrue(store.evict(player, state, state.getSession()));
+
+        assertNull(store.takeStaged(player));
+    }
+
+    @Test
+    void loadThatRacedAnEvictionIsNotStaged() {
+        PlayerStateStore store = new PlayerStateStore(16, STARTING_HEARTS, MAX_HEARTS, uuid -> null);
+        UUID player = UUID.randomUUID();
+
+        long generation = store.evictionGeneration(player);
+        // While the pre-login read runs, the player is changed, saved and evicted.
+        PlayerState state = store.ensureCached(player);
+        store.updateHearts(player, hearts -> hearts - 1);
+        assertFalse(store.stage(player, new PlayerState(STARTING_HEARTS, null), generation, 0));
+        assertTrue(store.evict(player, state, state.getSession()));
+        assertFalse(store.stage(player, new PlayerState(STARTING_HEARTS, null), generation, 0));
+        assertNull(store.takeStaged(player));
+
+        // A read that started after the eviction is staged and handed over once.
+        PlayerState read = new PlayerState(STARTING_HEARTS - 1, null);
+        assertTrue(store.stage(player, read, store.evictionGeneration(player), 100));
+        store.expireStaged(50);
+        assertSame(read, store.takeStaged(player).state);
+        assertNull(store.takeStaged(player));
+    }
+
+    @Test
+    void listenerSeesOnlyChangesToStoredHearts() {
+        Map<Integer, Integer> histogram = new HashMap<>();
+        PlayerStateStore.HeartsListener listener = new PlayerStateStore.HeartsListener() {
+            @Override
+            public void playerAdded(int hearts) {
+                histogram.merge(hearts, 1, Integer::sum);
+            }
+
+            @Override
+            public void heartsChanged(int from, int to) {
+                histogram.merge(from, -1, Integer::sum);
+                histogram.merge(to, 1, Integer::sum);
+            }
+        };
+        UUID stored = UUID.randomUUID();
+        UUID unknown = UUID.randomUUID();
+        UUID inGrace = UUID.randomUUID();
+        PlayerStateStore store = new PlayerStateStore(16, STARTING_HEARTS, MAX_HEARTS,
+                uuid -> uuid.equals(stored) ? new PlayerState(15, null) : null, listener);
+        // The row for the stored player is already counted by the database.
+        histogram.put(15, 1);
+
+        PlayerState graceState = new PlayerState(STARTING_HEARTS, null);
+        graceState.setGraceExpiryMillis(Long.MAX_VALUE);
+        synchronized (store.lockFor(inGrace)) {
+            store.put(inGrace, graceState);
+        }
+
+        store.transferHeart(stored, unknown);
+        store.transferHeart(inGrace, stored);
+        store.updateHearts(unknown, hearts -> hearts);
+
+        assertEquals(Map.of(14, 0, 15, 1, STARTING_HEARTS, 0, STARTING_HEARTS + 1, 1), histogram);
+    }
+}
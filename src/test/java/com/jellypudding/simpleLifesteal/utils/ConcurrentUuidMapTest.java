@@ -0,0 +1,218 @@
+package com.jellypudding.simpleLifesteal.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentUuidMapTest {
+
+    private static List<UUID> randomUuids(int count) {
+        List<UUID> uuids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            uuids.add(UUID.randomUUID());
+        }
+        return uuids;
+    }
+
+    @Test
+    void removedKeyCanBeReinserted() {
+        ConcurrentUuidMap<String> map = new ConcurrentUuidMap<>();
+        UUID key = UUID.randomUUID();
+
+        assertNull(map.put(key, "first"));
+        assertEquals("first", map.remove(key));
+        assertNull(map.get(key));
+        assertFalse(map.containsKey(key));
+        assertEquals(0, map.size());
+
+        assertNull(map.put(key, "second"));
+        assertEquals("second", map.get(key));
+        assertEquals(1, map.size());
+        assertNull(map.remove(UUID.randomUUID()));
+    }
+
+    @Test
+    void tombstonesKeepProbeChainsIntact() {
+        ConcurrentUuidMap<Integer> map = new ConcurrentUuidMap<>();
+        // Enough entries in a small table that probe chains run through removed slots.
+        List<UUID> keys = randomUuids(2_000);
+        for (int i = 0; i < keys.size(); i++) {
+            map.put(keys.get(i), i);
+        }
+        for (int i = 0; i < keys.size(); i += 2) {
+            assertEquals(i, map.remove(keys.get(i)));
+        }
+
+        assertEquals(keys.size() / 2, map.size());
+        for (int i = 0; i < keys.size(); i++) {
+            if (i % 2 == 0) {
+                assertNull(map.get(keys.get(i)));
+            } else {
+                assertEquals(i, map.get(keys.get(i)));
+            }
+        }
+
+        // Reinserting reuses each key's tombstone rather than claiming a new slot.
+        for (int i = 0; i < keys.size(); i += 2) {
+            assertNull(map.putIfAbsent(keys.get(i), -i));
+        }
+        assertEquals(keys.size(), map.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i % 2 == 0 ? -i : i, map.get(keys.get(i)));
+        }
+    }
+
+    @Test
+    void repeatedRemoveAndReinsertKeepsSizeAndValues() {
+        ConcurrentUuidMap<Integer> map = new ConcurrentUuidMap<>();
+        List<UUID> keys = randomUuids(64);
+        for (int round = 0; round < 200; round++) {
+            for (UUID key : keys) {
+                map.put(key, round);
+            }
+            for (UUID key : keys) {
+                assertEquals(round, map.get(key));
+                assertEquals(round, map.remove(key));
+            }
+            assertTrue(map.isEmpty());
+        }
+    }
+
+    @Test
+    void conditionalRemoveComparesByIdentity() {
+        ConcurrentUuidMap<String> map = new ConcurrentUuidMap<>();
+        UUID key = UUID.randomUUID();
+        String stored = new String("state");
+        map.put(key, stored);
+
+        assertFalse(map.remove(key, new String("state")));
+        assertSame(stored, map.get(key));
+        assertTrue(map.remove(key, stored));
+        assertNull(map.get(key));
+        assertFalse(map.remove(key, stored));
+    }
+
+    @Test
+    void forEachSeesOnlyLiveEntries() {
+        ConcurrentUuidMap<Integer> map = new ConcurrentUuidMap<>();
+        Map<UUID, Integer> expected = new HashMap<>();
+        List<UUID> keys = randomUuids(100);
+        for (int i = 0; i < keys.size(); i++) {
+            map.put(keys.get(i), i);
+            if (i % 3 == 0) {
+                map.remove(keys.get(i));
+            } else {
+                expected.put(keys.get(i), i);
+            }
+        }
+
+        Map<UUID, Integer> seen = new HashMap<>();
+        map.forEach(seen::put);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void readersSeeStableEntriesWhileTheTableResizes() throws Exception {
+        ConcurrentUuidMap<Integer> map = new ConcurrentUuidMap<>();
+        List<UUID> stable = randomUuids(32);
+        for (int i = 0; i < stable.size(); i++) {
+            map.put(stable.get(i), i);
+        }
+        List<UUID> added = randomUuids(50_000);
+
+        int readerCount = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch ready = new CountDownLatch(readerCount);
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < readerCount; r++) {
+            Thread reader = new Thread(() -> {
+                ready.countDown();
+                int lastSeen = -1;
+                while (writing.get() && failure.get() == null) {
+                    for (int i = 0; i < stable.size(); i++) {
+                        Integer value = map.get(stable.get(i));
+                        if (value == null || value != i) {
+                            failure.compareAndSet(null, "Stable key " + i + " read as " + value);
+                        }
+                    }
+                    // Once an added key has been seen, a later rebuild must not lose it.
+                    if (lastSeen >= 0 && map.get(added.get(lastSeen)) == null) {
+                        failure.compareAndSet(null, "Added key " + lastSeen + " disappeared");
+                    }
+                    int probe = Math.min(added.size() - 1, lastSeen + 1 + (int) (Math.random() * 64));
+                    Integer value = map.get(added.get(probe));
+                    if (value != null) {
+                        if (value != probe) {
+                            failure.compareAndSet(null, "Added key " + probe + " read as " + value);
+                        }
+                        lastSeen = probe;
+                    }
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+
+        ready.await();
+        for (int i = 0; i < added.size(); i++) {
+            map.put(added.get(i), i);
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get(), failure.get());
+        assertEquals(stable.size() + added.size(), map.size());
+        for (int i = 0; i < added.size(); i++) {
+            assertEquals(i, map.get(added.get(i)));
+        }
+    }
+
+    @Test
+    void racingComputeIfAbsentKeepsOneValue() throws Exception {
+        ConcurrentUuidMap<Object> map = new ConcurrentUuidMap<>();
+        UUID key = UUID.randomUUID();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        Object[] results = new Object[threads];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                results[index] = map.computeIfAbsent(key, k -> new Object());
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Object kept = map.get(key);
+        for (Object result : results) {
+            assertSame(kept, result);
+        }
+        assertEquals(1, map.size());
+    }
+}